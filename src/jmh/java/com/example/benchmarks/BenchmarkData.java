@@ -0,0 +1,53 @@
+package com.example.benchmarks;
+
+import com.example.model.Todo;
+import com.example.model.User;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// deterministic datasets shaped like JSONPlaceholder's, but of any size
+public final class BenchmarkData {
+    private static final String[] WORDS = {
+            "delectus", "aut", "autem", "quis", "ut", "nam", "facilis", "et", "officia", "qui",
+            "fugiat", "veniam", "illo", "expedita", "sed", "repellendus", "laboriosam", "molestiae",
+            "voluptas", "dolorem", "ipsa", "suscipit", "enim", "tempora", "rerum", "doloribus"
+    };
+
+    private BenchmarkData() {}
+
+    public static List<Todo> todos(int count, int users) {
+        Random random = new Random(42);
+        List<Todo> todos = new ArrayList<>(count);
+
+        for (int i = 1; i <= count; i++) {
+            long userId = (i - 1L) % users + 1;
+            todos.add(new Todo((long) i, userId, title(random), random.nextInt(3) == 0));
+        }
+
+        return todos;
+    }
+
+    public static List<User> users(int count) {
+        List<User> users = new ArrayList<>(count);
+
+        for (int i = 1; i <= count; i++) {
+            users.add(new User((long) i, "User " + i, "user" + i, "user" + i + "@example.com"));
+        }
+
+        return users;
+    }
+
+    private static String title(Random random) {
+        StringBuilder title = new StringBuilder();
+        int words = 3 + random.nextInt(5);
+
+        for (int i = 0; i < words; i++) {
+            if (i > 0) title.append(' ');
+            title.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+
+        return title.toString();
+    }
+}
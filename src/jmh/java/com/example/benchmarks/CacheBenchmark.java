@@ -0,0 +1,82 @@
+package com.example.benchmarks;
+
+import com.example.client.impl.EvictionPolicy;
+import com.example.client.impl.MemoryCacheManager;
+import com.example.model.Todo;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/*
+    MemoryCacheManager under contention: readers and writers of single todos and user lists
+    hitting the same instance from 8 threads, unbounded, bounded (W-TinyLFU) and compact (columnar)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+@State(Scope.Benchmark)
+public class CacheBenchmark {
+    private static final int TODOS = 100_000;
+    private static final int USERS = 1_000;
+
+    @Param({"unbounded", "bounded", "compact"})
+    public String mode;
+
+    private MemoryCacheManager cache;
+    private List<Todo> todos;
+
+    @Setup
+    public void setUp() {
+        cache = switch (mode) {
+            case "bounded" ->
+                    new MemoryCacheManager(TODOS / 2, Long.MAX_VALUE, () -> EvictionPolicy.windowTinyLfu(TODOS / 2));
+            case "compact" -> MemoryCacheManager.compact();
+            default -> new MemoryCacheManager();
+        };
+        todos = BenchmarkData.todos(TODOS, USERS);
+
+        for (Todo todo : todos) {
+            cache.cacheTodo(todo);
+        }
+        todos.stream()
+                .collect(Collectors.groupingBy(Todo::getUserId))
+                .forEach(cache::cacheUserTodos);
+    }
+
+    @Benchmark
+    public Optional<Todo> getTodo() {
+        return cache.getCachedTodo(ThreadLocalRandom.current().nextLong(1, TODOS + 1));
+    }
+
+    @Benchmark
+    public void putTodo() {
+        cache.cacheTodo(todos.get(ThreadLocalRandom.current().nextInt(TODOS)));
+    }
+
+    @Benchmark
+    public Optional<List<Todo>> getUserTodos() {
+        return cache.getCachedUserTodos(ThreadLocalRandom.current().nextLong(1, USERS + 1));
+    }
+
+    // 9 reads to 1 write, closer to what the client does
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(7)
+    public Optional<Todo> mixedRead() {
+        return getTodo();
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public void mixedWrite() {
+        putTodo();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.benchmarks;
+
+import com.example.client.impl.EvictionPolicy;
+import com.example.client.impl.MemoryCacheManager;
+import com.example.model.Todo;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/*
+    MemoryCacheManager's list slots under heavy contention: 64 threads reading the all todos list
+    and user lists of a JSONPlaceholder-sized dataset, alone and while a few writers delete todos
+    and replace lists. Run with -prof gc, hits should not allocate. `bounded` (LRU, limits above the
+    dataset) adds the access recording of bounded mode, hits only offer to a striped buffer then
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+@State(Scope.Benchmark)
+public class CacheContentionBenchmark {
+    private static final int TODOS = 200;
+    private static final int USERS = 10;
+
+    @Param({"unbounded", "bounded", "compact"})
+    public String mode;
+
+    private MemoryCacheManager cache;
+    private List<Todo> todos;
+    private Map<Long, List<Todo>> todosByUser;
+
+    @Setup
+    public void setUp() {
+        cache = switch (mode) {
+            case "compact" -> MemoryCacheManager.compact();
+            case "bounded" -> new MemoryCacheManager(TODOS * 2, Long.MAX_VALUE, EvictionPolicy::lru);
+            default -> new MemoryCacheManager();
+        };
+        todos = BenchmarkData.todos(TODOS, USERS);
+        todosByUser = todos.stream().collect(Collectors.groupingBy(Todo::getUserId));
+
+        cache.cacheAllTodos(todos);
+        todosByUser.forEach(cache::cacheUserTodos);
+    }
+
+    @Benchmark
+    public Optional<List<Todo>> getAllTodos() {
+        return cache.getCachedAllTodos();
+    }
+
+    @Benchmark
+    public Optional<List<Todo>> getUserTodos() {
+        return cache.getCachedUserTodos(ThreadLocalRandom.current().nextLong(1, USERS + 1));
+    }
+
+    // 60 readers and 4 writers, each write drops a todo from every list and puts it back
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(60)
+    public Optional<List<Todo>> churnRead() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return random.nextBoolean() ?
+                cache.getCachedAllTodos() :
+                cache.getCachedUserTodos(random.nextLong(1, USERS + 1));
+    }
+
+    @Benchmark
+    @Group("churn")
+    @GroupThreads(4)
+    public void churnWrite() {
+        Todo todo = todos.get(ThreadLocalRandom.current().nextInt(TODOS));
+        cache.removeFromCache(todo.getId());
+        cache.cacheTodo(todo);
+        cache.cacheUserTodos(todo.getUserId(), todosByUser.get(todo.getUserId()));
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.benchmarks;
+
+import com.example.client.JsonPlaceholderClient;
+import com.example.client.impl.MemoryCacheManager;
+import com.example.model.ApiException;
+import com.example.model.Todo;
+import com.example.server.FakeJsonPlaceholderServer;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/*
+    End-to-end client calls against the local fake server: request building, HTTP,
+    parsing and caching. The cache is cleared before every call so each one is a real request
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+// the fake server's small responses otherwise wait for delayed ACKs; the property is JVM-wide,
+// so it is set for the forked benchmark JVM only, never by the server itself
+@Fork(value = 1, jvmArgsAppend = "-Dsun.net.httpserver.nodelay=true")
+@State(Scope.Benchmark)
+public class ClientBenchmark {
+    private static final int TODOS = 2_000;
+    private static final int USERS = 10;
+
+    private FakeJsonPlaceholderServer server;
+    private JsonPlaceholderClient client;
+    private MemoryCacheManager cache;
+
+    @Setup
+    public void setUp() throws IOException {
+        server = new FakeJsonPlaceholderServer(TODOS, USERS);
+
+        cache = new MemoryCacheManager();
+        client = new JsonPlaceholderClient(cache);
+        client.setBaseUrl(server.start());
+    }
+
+    @TearDown
+    public void tearDown() {
+        server.stop();
+    }
+
+    @Benchmark
+    public List<Todo> getAllTodos() throws ApiException {
+        cache.clearCache();
+        return client.getAllTodos();
+    }
+
+    @Benchmark
+    public List<Todo> getUserTodos() throws ApiException {
+        cache.clearCache();
+        return client.getUserTodos(1L);
+    }
+
+    @Benchmark
+    public Optional<Todo> getTodoById() throws ApiException {
+        cache.clearCache();
+        return client.getTodoById(ThreadLocalRandom.current().nextLong(1, TODOS + 1));
+    }
+}
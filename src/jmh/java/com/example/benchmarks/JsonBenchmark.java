@@ -0,0 +1,113 @@
+package com.example.benchmarks;
+
+import com.example.client.json.JsonCodec;
+import com.example.model.Todo;
+import com.example.model.User;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.reflect.TypeToken;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    (De)serialization of todo and user lists: reflective Gson, the client's old setup (pretty printing,
+    a TypeToken per call) and JsonCodec's adapters, from strings and from bytes.
+    Allocation per call: mvn -P benchmarks verify -Djmh.args="JsonBenchmark -prof gc"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+    private static final Type TODO_LIST = new TypeToken<List<Todo>>(){}.getType();
+    private static final Type USER_LIST = new TypeToken<List<User>>(){}.getType();
+
+    @Param({"200", "10000"})
+    public int size;
+
+    private final Gson gson = new Gson();
+    private final Gson pretty = new GsonBuilder().setPrettyPrinting().create();
+
+    private List<Todo> todos;
+    private List<User> users;
+    private String todosJson;
+    private String usersJson;
+    private byte[] todosBytes;
+    private byte[] usersBytes;
+
+    @Setup
+    public void setUp() {
+        todos = BenchmarkData.todos(size, 10);
+        users = BenchmarkData.users(size);
+        todosJson = gson.toJson(todos);
+        usersJson = gson.toJson(users);
+        todosBytes = todosJson.getBytes(StandardCharsets.UTF_8);
+        usersBytes = usersJson.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public List<Todo> parseTodos() {
+        return gson.fromJson(todosJson, TODO_LIST);
+    }
+
+    @Benchmark
+    public List<Todo> parseTodosOldClient() {
+        return pretty.fromJson(todosJson, new TypeToken<List<Todo>>(){}.getType());
+    }
+
+    @Benchmark
+    public List<Todo> parseTodosCodec() {
+        return JsonCodec.GSON.fromJson(todosJson, JsonCodec.TODO_LIST);
+    }
+
+    @Benchmark
+    public List<Todo> parseTodosBytes() {
+        return JsonCodec.readTodos(todosBytes);
+    }
+
+    @Benchmark
+    public String writeTodos() {
+        return gson.toJson(todos);
+    }
+
+    @Benchmark
+    public String writeTodosOldClient() {
+        return pretty.toJson(todos);
+    }
+
+    @Benchmark
+    public String writeTodosCodec() {
+        return JsonCodec.toJson(todos);
+    }
+
+    @Benchmark
+    public List<User> parseUsers() {
+        return gson.fromJson(usersJson, USER_LIST);
+    }
+
+    @Benchmark
+    public List<User> parseUsersCodec() {
+        return JsonCodec.GSON.fromJson(usersJson, JsonCodec.USER_LIST);
+    }
+
+    @Benchmark
+    public List<User> parseUsersBytes() {
+        return JsonCodec.readUsers(usersBytes);
+    }
+
+    @Benchmark
+    public String writeUsers() {
+        return gson.toJson(users);
+    }
+
+    @Benchmark
+    public String writeUsersCodec() {
+        return JsonCodec.toJson(users);
+    }
+}
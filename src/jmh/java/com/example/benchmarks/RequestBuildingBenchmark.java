@@ -0,0 +1,94 @@
+package com.example.benchmarks;
+
+import com.example.client.RequestTemplate;
+import com.example.client.UriTemplate;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Building a request the way the client used to (string concatenation, URI.create, headers
+    set on a new builder) against url and request templates. Allocation per call is reported
+    by the gc profiler: mvn -P benchmarks verify -Djmh.args="RequestBuildingBenchmark -prof gc",
+    see gc.alloc.rate.norm
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class RequestBuildingBenchmark {
+    private static final String BASE_URL = "https://jsonplaceholder.typicode.com";
+    private static final Duration TIMEOUT = Duration.ofSeconds(15);
+
+    private final UriTemplate todoById = new UriTemplate(BASE_URL, "/todos/{}");
+    private final UriTemplate todosByUser = new UriTemplate(BASE_URL, "/todos?userId={}");
+    private final RequestTemplate get = new RequestTemplate("GET", TIMEOUT,
+            "Accept", "application/json");
+    private final RequestTemplate put = new RequestTemplate("PUT", TIMEOUT,
+            "Accept", "application/json", "Content-Type", "application/json");
+
+    private final String body = "{\"userId\":1,\"id\":1,\"title\":\"delectus aut autem\",\"completed\":true}";
+    private long id;
+
+    // ids cycle through the first 200, like the real api
+    private long nextId() {
+        return id = id % 200 + 1;
+    }
+
+    @Benchmark
+    public HttpRequest concatGetById() {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/todos" + "/" + nextId()))
+                .header("Accept", "application/json")
+                .header("Content-Type", "application/json")
+                .timeout(TIMEOUT)
+                .GET().build();
+    }
+
+    @Benchmark
+    public HttpRequest templateGetById() {
+        return get.build(todoById.expand(nextId()));
+    }
+
+    @Benchmark
+    public HttpRequest concatGetUserTodos() {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/todos" + "?userId=" + nextId()))
+                .header("Accept", "application/json")
+                .header("Content-Type", "application/json")
+                .timeout(TIMEOUT)
+                .GET().build();
+    }
+
+    @Benchmark
+    public HttpRequest templateGetUserTodos() {
+        return get.build(todosByUser.expand(nextId()));
+    }
+
+    @Benchmark
+    public HttpRequest concatPut() {
+        return HttpRequest.newBuilder()
+                .uri(URI.create(BASE_URL + "/todos" + "/" + nextId()))
+                .header("Accept", "application/json")
+                .header("Content-Type", "application/json")
+                .timeout(TIMEOUT)
+                .PUT(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    @Benchmark
+    public HttpRequest templatePut() {
+        return put.build(todoById.expand(nextId()), body);
+    }
+
+    // ids past the url cache, the template still skips the intermediate strings and header checks
+    @Benchmark
+    public HttpRequest templateGetUncachedId() {
+        return get.build(todoById.expand(UriTemplate.CACHE_SIZE + nextId()));
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.benchmarks;
+
+import com.example.client.JsonPlaceholderClient;
+import com.example.client.impl.MemoryCacheManager;
+import com.example.model.ApiException;
+import com.example.model.Todo;
+import com.example.service.AuthService;
+import com.example.service.TodoService;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/*
+    Service queries over a large warm cache, the user owns `size` todos.
+    The client never reaches the network: its lists are cached before the first call
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TodoServiceBenchmark {
+    private static final long USER_ID = 1L;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    @Param({"aut", "expedita sed"})
+    public String query;
+
+    private TodoService todoService;
+
+    @Setup
+    public void setUp() throws ApiException {
+        MemoryCacheManager cache = new MemoryCacheManager();
+        cache.cacheUserTodos(USER_ID, BenchmarkData.todos(size, 1));
+
+        JsonPlaceholderClient client = new JsonPlaceholderClient(cache);
+        AuthService authService = new AuthService(client) {
+            @Override
+            public boolean isLoggedIn() { return true; }
+
+            @Override
+            public Long getCurrentUserId() { return USER_ID; }
+        };
+
+        todoService = new TodoService(authService, client);
+    }
+
+    @Benchmark
+    public List<Todo> searchTodos() throws ApiException {
+        return todoService.searchTodos(query);
+    }
+
+    @Benchmark
+    public TodoService.TodoStats getTodoStats() throws ApiException {
+        return todoService.getTodoStats();
+    }
+}
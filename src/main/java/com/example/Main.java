@@ -2,6 +2,7 @@ package com.example;
 
 import com.example.client.JsonPlaceholderClient;
 import com.example.model.Todo;
+import com.example.server.FakeJsonPlaceholderServer;
 
 import java.util.List;
 
@@ -10,8 +11,16 @@ public class Main {
         System.out.println("Testing JsonPlaceholderClient\n");
 
         JsonPlaceholderClient client = new JsonPlaceholderClient();
+        // --local runs the demo against the embedded fake server instead of the real API
+        FakeJsonPlaceholderServer localServer = null;
 
         try {
+            if (args.length > 0 && "--local".equals(args[0])) {
+                localServer = new FakeJsonPlaceholderServer();
+                client.setBaseUrl(localServer.start());
+                System.out.println("Using local server at " + client.getBaseUrl() + "\n");
+            }
+
             // 1. Connection test
             System.out.println("1. Connection test");
             boolean connected = client.testConnection();
@@ -57,6 +66,9 @@ public class Main {
         } catch (Exception e) {
             System.err.println("Error: " + e.getMessage());
             e.printStackTrace();
+        } finally {
+            if (localServer != null)
+                localServer.stop();
         }
 
         System.out.println("\nDone");
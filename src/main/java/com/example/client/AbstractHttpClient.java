@@ -1,23 +1,32 @@
 package com.example.client;
 
+import com.example.client.json.JsonCodec;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 
+import java.net.URI;
 import java.net.http.HttpClient;
 import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 public abstract class AbstractHttpClient implements ApiClient {
-    protected static final Gson GSON = new GsonBuilder()
-            .setPrettyPrinting()
-            .create();
+    // hand-written adapters, compact output
+    protected static final Gson GSON = JsonCodec.GSON;
 
     protected final HttpClient httpClient;
     protected String baseUrl = "https://jsonplaceholder.typicode.com";
+    // url templates of the current base url, dropped as a whole when it changes
+    private volatile Map<String, UriTemplate> uriTemplates = new ConcurrentHashMap<>();
 
     protected AbstractHttpClient() {
-        this.httpClient = HttpClient.newBuilder()
-                .connectTimeout(Duration.ofSeconds(10))
-                .version(HttpClient.Version.HTTP_2)
+        this.httpClient = newHttpClientBuilder().build();
+    }
+
+    // async responses complete on the given executor, e.g. Executors.newVirtualThreadPerTaskExecutor()
+    protected AbstractHttpClient(Executor executor) {
+        this.httpClient = newHttpClientBuilder()
+                .executor(executor)
                 .build();
     }
 
@@ -27,10 +36,11 @@ public abstract class AbstractHttpClient implements ApiClient {
 
     @Override
     public void setBaseUrl(String baseUrl) {
-        if (baseUrl != null && baseUrl.trim().isEmpty()) {
+        if (baseUrl != null && !baseUrl.trim().isEmpty()) {
             this.baseUrl = baseUrl.endsWith("/") ?
                     baseUrl.substring(0, baseUrl.length() - 1) :
                     baseUrl;
+            this.uriTemplates = new ConcurrentHashMap<>();
         }
     }
 
@@ -38,12 +48,30 @@ public abstract class AbstractHttpClient implements ApiClient {
     public String getBaseUrl() { return baseUrl; }
 
     // helpers
-    protected String buildUrl(String endpoint) {
-        return baseUrl + endpoint;
+    private static HttpClient.Builder newHttpClientBuilder() {
+        return HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .version(HttpClient.Version.HTTP_2);
     }
 
-    // url with params
-    protected String buildUrl(String endpoint, String queryParams) {
-        return buildUrl(endpoint) + "?" + queryParams;
+    // parsed url of a fixed endpoint, e.g. "/users"
+    protected URI uri(String pathTemplate) {
+        return uriTemplate(pathTemplate).expand();
+    }
+
+    // parsed url with the value in place of "{}", e.g. "/todos/{}"
+    protected URI uri(String pathTemplate, long value) {
+        return uriTemplate(pathTemplate).expand(value);
+    }
+
+    protected UriTemplate uriTemplate(String pathTemplate) {
+        Map<String, UriTemplate> templates = uriTemplates;
+        UriTemplate template = templates.get(pathTemplate);
+        if (template == null) {
+            UriTemplate created = new UriTemplate(baseUrl, pathTemplate);
+            template = templates.putIfAbsent(pathTemplate, created);
+            if (template == null) template = created;
+        }
+        return template;
     }
 }
@@ -1,10 +1,15 @@
 package com.example.client;
 
 import com.example.model.ApiException;
+import com.example.model.BulkResult;
 import com.example.model.Todo;
 import com.example.model.User;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 // interface for working with JSONPlaceholder API
@@ -19,6 +24,72 @@ public interface ApiClient {
     boolean deleteTodo(Long id) throws ApiException;
     List<Todo> getTodosByCompletion(Long userId, boolean completed) throws ApiException;
 
+    // batch writes, one outcome per item in the order given; a failed item doesn't stop the others.
+    // these defaults send one call after another, clients may keep many in flight instead
+    default BulkResult<Todo> createTodos(Collection<Todo> todos) throws ApiException {
+        List<BulkResult.ItemResult<Todo>> results = new ArrayList<>(todos.size());
+        for (Todo todo : todos) {
+            try {
+                Todo created = createTodo(todo);
+                results.add(BulkResult.ItemResult.succeeded(created != null ? created.getId() : null, created, 1));
+            } catch (ApiException e) {
+                results.add(BulkResult.ItemResult.failed(null, e, 1));
+            }
+        }
+        return new BulkResult<>(results);
+    }
+
+    // partial todos by the id of the todo they patch
+    default BulkResult<Todo> patchTodos(Map<Long, Todo> partialTodos) throws ApiException {
+        return patchTodos(partialTodos, null);
+    }
+
+    // null timeout waits for every patch, the ones not done by the deadline are reported as failed
+    default BulkResult<Todo> patchTodos(Map<Long, Todo> partialTodos, Duration timeout) throws ApiException {
+        long deadline = timeout != null ? System.nanoTime() + timeout.toNanos() : Long.MAX_VALUE;
+        List<BulkResult.ItemResult<Todo>> results = new ArrayList<>(partialTodos.size());
+        for (Map.Entry<Long, Todo> entry : partialTodos.entrySet()) {
+            if (System.nanoTime() > deadline) {
+                results.add(BulkResult.ItemResult.failed(entry.getKey(), missedDeadline(entry.getKey()), 0));
+                continue;
+            }
+            try {
+                results.add(BulkResult.ItemResult.succeeded(entry.getKey(),
+                        patchTodo(entry.getKey(), entry.getValue()), 1));
+            } catch (ApiException e) {
+                results.add(BulkResult.ItemResult.failed(entry.getKey(), e, 1));
+            }
+        }
+        return new BulkResult<>(results);
+    }
+
+    default BulkResult<Boolean> deleteTodos(Collection<Long> ids) throws ApiException {
+        return deleteTodos(ids, null);
+    }
+
+    // null timeout waits for every delete, the ones not done by the deadline are reported as failed
+    default BulkResult<Boolean> deleteTodos(Collection<Long> ids, Duration timeout) throws ApiException {
+        long deadline = timeout != null ? System.nanoTime() + timeout.toNanos() : Long.MAX_VALUE;
+        List<BulkResult.ItemResult<Boolean>> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (System.nanoTime() > deadline) {
+                results.add(BulkResult.ItemResult.failed(id, missedDeadline(id), 0));
+                continue;
+            }
+            try {
+                results.add(BulkResult.ItemResult.succeeded(id, deleteTodo(id), 1));
+            } catch (ApiException e) {
+                results.add(BulkResult.ItemResult.failed(id, e, 1));
+            }
+        }
+        return new BulkResult<>(results);
+    }
+
+    // what batch items cut off by the deadline fail with
+    static ApiException missedDeadline(Long id) {
+        return new ApiException("Todo " + id + " was not processed before the deadline");
+    }
+
     // methods for users
     List<User> getAllUsers() throws ApiException;
     Optional<User> getUserById(Long id) throws ApiException;
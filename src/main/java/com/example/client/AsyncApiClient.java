@@ -0,0 +1,26 @@
+package com.example.client;
+
+import com.example.model.Todo;
+import com.example.model.User;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+// non-blocking counterpart of ApiClient
+// futures complete exceptionally with ApiException (wrapped in CompletionException)
+public interface AsyncApiClient {
+    // methods for todos
+    CompletableFuture<List<Todo>> getAllTodosAsync();
+    CompletableFuture<List<Todo>> getUserTodosAsync(Long userId);
+    CompletableFuture<Optional<Todo>> getTodoByIdAsync(Long id);
+    CompletableFuture<Todo> createTodoAsync(Todo todo);
+    CompletableFuture<Todo> updateTodoAsync(Todo todo);
+    CompletableFuture<Todo> patchTodoAsync(Long id, Todo partialTodo);
+    CompletableFuture<Boolean> deleteTodoAsync(Long id);
+    CompletableFuture<List<Todo>> getTodosByCompletionAsync(Long userId, boolean completed);
+
+    // methods for users
+    CompletableFuture<List<User>> getAllUsersAsync();
+    CompletableFuture<Optional<User>> getUserByIdAsync(Long id);
+}
@@ -0,0 +1,12 @@
+package com.example.client;
+
+import com.example.model.ApiException;
+import com.example.model.Todo;
+
+import java.util.List;
+
+// loads fresh data for a cache that refreshes entries on its own, the cache stores the result itself
+public interface CacheLoader {
+    List<Todo> loadAllTodos() throws ApiException;
+    List<Todo> loadUserTodos(Long userId) throws ApiException;
+}
@@ -1,15 +1,28 @@
 package com.example.client;
 
+import com.example.client.event.TodoEventBus;
 import com.example.model.Todo;
+import com.example.model.TodoDelta;
 
+import java.util.Collection;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+// cached lists may be shared with other readers, callers must not modify them
 public interface CacheManager {
     // users todos
     void cacheUserTodos(Long userId, List<Todo> todos);
     Optional<List<Todo>> getCachedUserTodos(Long userId);
 
+    // a reloaded user list with what changed since the previous one, caches may update only the changed entries
+    default void applyDelta(Long userId, List<Todo> todos, TodoDelta delta) {
+        cacheUserTodos(userId, todos);
+        if (!delta.getRemovedIds().isEmpty())
+            removeFromCache(delta.getRemovedIds());
+    }
+
     // all todos
     void cacheAllTodos(List<Todo> todos);
     Optional<List<Todo>> getCachedAllTodos();
@@ -19,32 +32,128 @@ public interface CacheManager {
     Optional<Todo> getCachedTodo(Long id);
     void removeFromCache(Long id);
 
+    // drops several todos at once, caches may strip their lists in a single pass
+    default void removeFromCache(Collection<Long> ids) {
+        ids.forEach(this::removeFromCache);
+    }
+
     // all cache
     void clearCache();
     void clearUserCache(Long userId);
     // get cache statistics
     CacheStats getCacheStats();
 
+    // time the client spent loading a missed entry from the API, for latency stats
+    default void recordLoadTime(Region region, long nanos) {}
+
+    // indexed view of the cached todos, for caches that maintain one
+    default Optional<TodoStore> getTodoStore() { return Optional.empty(); }
+
+    // where to publish CacheInvalidated events about entries the cache dropped by itself, null to stop
+    default void setEventBus(TodoEventBus events) {}
+
+    // parts of the cache statistics are reported for
+    enum Region { ALL_TODOS, USER_TODOS, TODO }
+
     // nested class for statistics
     class CacheStats {
         private final int cachedUsersCount;
         private final int cachedTodosCount;
         private final long cacheSizeBytes;
+        private final long evictionCount;
+        private final long expirationCount;
+        private final Map<Region, RegionStats> regions;
 
         public CacheStats(int cachedUsersCount, int cachedTodosCount, long cacheSizeBytes) {
+            this(cachedUsersCount, cachedTodosCount, cacheSizeBytes, 0);
+        }
+
+        public CacheStats(int cachedUsersCount, int cachedTodosCount, long cacheSizeBytes, long evictionCount) {
+            this(cachedUsersCount, cachedTodosCount, cacheSizeBytes, evictionCount, 0, Map.of());
+        }
+
+        public CacheStats(int cachedUsersCount, int cachedTodosCount, long cacheSizeBytes,
+                          long evictionCount, long expirationCount, Map<Region, RegionStats> regions) {
             this.cachedUsersCount = cachedUsersCount;
             this.cachedTodosCount = cachedTodosCount;
             this.cacheSizeBytes = cacheSizeBytes;
+            this.evictionCount = evictionCount;
+            this.expirationCount = expirationCount;
+
+            this.regions = new EnumMap<>(Region.class);
+            for (Region region : Region.values()) {
+                this.regions.put(region, regions.getOrDefault(region, RegionStats.EMPTY));
+            }
         }
 
         public int getCachedUsersCount() { return cachedUsersCount; }
         public int getCachedTodosCount() { return cachedTodosCount; }
         public long getCacheSizeBytes() { return cacheSizeBytes; }
+        public long getEvictionCount() { return evictionCount; }
+        public long getExpirationCount() { return expirationCount; }
+        public RegionStats getRegionStats(Region region) { return regions.get(region); }
+
+        public long getHitCount() {
+            return regions.values().stream().mapToLong(RegionStats::getHitCount).sum();
+        }
+
+        public long getMissCount() {
+            return regions.values().stream().mapToLong(RegionStats::getMissCount).sum();
+        }
+
+        public double getHitRate() {
+            long requests = getHitCount() + getMissCount();
+            return requests > 0 ? (double) getHitCount() / requests : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("CacheStats{users=%d, todos=%d, size=%.2f KB, evictions=%d, expirations=%d, " +
+                            "hitRate=%.1f%%, allTodos=%s, userTodos=%s, todo=%s}",
+                    cachedUsersCount, cachedTodosCount, cacheSizeBytes / 1024.0, evictionCount, expirationCount,
+                    getHitRate() * 100, regions.get(Region.ALL_TODOS), regions.get(Region.USER_TODOS),
+                    regions.get(Region.TODO));
+        }
+    }
+
+    // hits, misses and load latency of one cache region
+    class RegionStats {
+        public static final RegionStats EMPTY = new RegionStats(0, 0, 0, 0, 0, 0);
+
+        private final long hitCount;
+        private final long missCount;
+        private final long loadCount;
+        private final long loadP50Micros;
+        private final long loadP95Micros;
+        private final long loadP99Micros;
+
+        public RegionStats(long hitCount, long missCount, long loadCount,
+                           long loadP50Micros, long loadP95Micros, long loadP99Micros) {
+            this.hitCount = hitCount;
+            this.missCount = missCount;
+            this.loadCount = loadCount;
+            this.loadP50Micros = loadP50Micros;
+            this.loadP95Micros = loadP95Micros;
+            this.loadP99Micros = loadP99Micros;
+        }
+
+        public long getHitCount() { return hitCount; }
+        public long getMissCount() { return missCount; }
+        public long getLoadCount() { return loadCount; }
+        public long getLoadP50Micros() { return loadP50Micros; }
+        public long getLoadP95Micros() { return loadP95Micros; }
+        public long getLoadP99Micros() { return loadP99Micros; }
+
+        public double getHitRate() {
+            long requests = hitCount + missCount;
+            return requests > 0 ? (double) hitCount / requests : 0.0;
+        }
 
         @Override
         public String toString() {
-            return String.format("CacheStats{users=%d, todos=%d, size=%.2f KB",
-                    cachedUsersCount, cachedTodosCount, cacheSizeBytes / 1024.0);
+            return String.format("{hits=%d, misses=%d, loads=%d, p50=%.1f ms, p95=%.1f ms, p99=%.1f ms}",
+                    hitCount, missCount, loadCount,
+                    loadP50Micros / 1000.0, loadP95Micros / 1000.0, loadP99Micros / 1000.0);
         }
     }
 }
@@ -0,0 +1,179 @@
+package com.example.client;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+/*
+    Stops sending requests to an upstream that keeps failing.
+    CLOSED: calls pass, outcomes of the last `windowSize` calls are kept; once at least `minCalls`
+    were seen and the failure rate reaches the threshold the breaker opens.
+    OPEN: calls are rejected right away for `openDuration`.
+    HALF_OPEN: up to `halfOpenCalls` trial calls pass; all succeeding closes the breaker,
+    any failure opens it again. Every granted call must end in onSuccess(), onFailure() or release()
+ */
+public class CircuitBreaker {
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final double failureRateThreshold;
+    private final boolean[] window;
+    private final int minCalls;
+    private final long openDurationNanos;
+    private final int halfOpenCalls;
+    private final LongSupplier clock;
+
+    // guarded by this
+    private State state = State.CLOSED;
+    private int windowPosition = 0;
+    private int windowCount = 0;
+    private int windowFailures = 0;
+    private long openedAt = 0;
+    private int halfOpenPermits = 0;
+    private int halfOpenSuccesses = 0;
+
+    private long rejectedCount = 0;
+    private long openedCount = 0;
+
+    // opens at 50% failures of the last 100 calls (50 at least), retries after 30 s with 3 trial calls.
+    // Every attempt counts, a wide window keeps a few unlucky retries from tripping it
+    public CircuitBreaker() {
+        this(0.5, 100, 50, Duration.ofSeconds(30), 3);
+    }
+
+    public CircuitBreaker(double failureRateThreshold, int windowSize, int minCalls,
+                          Duration openDuration, int halfOpenCalls) {
+        this(failureRateThreshold, windowSize, minCalls, openDuration, halfOpenCalls, System::nanoTime);
+    }
+
+    CircuitBreaker(double failureRateThreshold, int windowSize, int minCalls,
+                   Duration openDuration, int halfOpenCalls, LongSupplier clock) {
+        if (failureRateThreshold <= 0.0 || failureRateThreshold > 1.0)
+            throw new IllegalArgumentException("Failure rate threshold must be in (0, 1]: " + failureRateThreshold);
+        if (windowSize <= 0 || minCalls <= 0 || minCalls > windowSize)
+            throw new IllegalArgumentException("Invalid window: " + minCalls + " of " + windowSize);
+        if (halfOpenCalls <= 0)
+            throw new IllegalArgumentException("Half-open calls must be positive: " + halfOpenCalls);
+
+        this.failureRateThreshold = failureRateThreshold;
+        this.window = new boolean[windowSize];
+        this.minCalls = minCalls;
+        this.openDurationNanos = openDuration.toNanos();
+        this.halfOpenCalls = halfOpenCalls;
+        this.clock = clock;
+    }
+
+    // false if the call must not be made
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (clock.getAsLong() - openedAt < openDurationNanos) {
+                rejectedCount++;
+                return false;
+            }
+
+            state = State.HALF_OPEN;
+            halfOpenPermits = halfOpenCalls;
+            halfOpenSuccesses = 0;
+        }
+
+        if (state == State.HALF_OPEN) {
+            if (halfOpenPermits == 0) {
+                rejectedCount++;
+                return false;
+            }
+            halfOpenPermits--;
+        }
+
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSuccesses >= halfOpenCalls)
+                close();
+            return;
+        }
+
+        record(false);
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+            return;
+        }
+
+        record(true);
+        if (state == State.CLOSED && windowCount >= minCalls &&
+                (double) windowFailures / windowCount >= failureRateThreshold)
+            open();
+    }
+
+    // a granted call ended without an outcome (interrupted, cancelled, failed before sending),
+    // a trial call gives its permit back so the breaker doesn't wait for it forever
+    public synchronized void release() {
+        if (state == State.HALF_OPEN && halfOpenPermits + halfOpenSuccesses < halfOpenCalls)
+            halfOpenPermits++;
+    }
+
+    public synchronized State getState() {
+        // report the transition a caller would trigger now
+        if (state == State.OPEN && clock.getAsLong() - openedAt >= openDurationNanos)
+            return State.HALF_OPEN;
+        return state;
+    }
+
+    public synchronized Stats getStats() {
+        return new Stats(getState(), windowCount > 0 ? (double) windowFailures / windowCount : 0.0,
+                rejectedCount, openedCount);
+    }
+
+    // helpers, callers hold the lock
+    private void record(boolean failure) {
+        if (windowCount == window.length) {
+            if (window[windowPosition]) windowFailures--;
+        } else {
+            windowCount++;
+        }
+
+        window[windowPosition] = failure;
+        if (failure) windowFailures++;
+        windowPosition = (windowPosition + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = clock.getAsLong();
+        openedCount++;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        windowPosition = 0;
+        windowCount = 0;
+        windowFailures = 0;
+    }
+
+    public static class Stats {
+        private final State state;
+        private final double failureRate;
+        private final long rejectedCount;
+        private final long openedCount;
+
+        public Stats(State state, double failureRate, long rejectedCount, long openedCount) {
+            this.state = state;
+            this.failureRate = failureRate;
+            this.rejectedCount = rejectedCount;
+            this.openedCount = openedCount;
+        }
+
+        public State getState() { return state; }
+        public double getFailureRate() { return failureRate; }
+        public long getRejectedCount() { return rejectedCount; }
+        public long getOpenedCount() { return openedCount; }
+
+        @Override
+        public String toString() {
+            return String.format("{state=%s, failureRate=%.1f%%, rejected=%d, opened=%d}",
+                    state, failureRate * 100, rejectedCount, openedCount);
+        }
+    }
+}
@@ -1,48 +1,112 @@
 package com.example.client;
 
+import com.example.client.event.TodoEvent;
+import com.example.client.event.TodoEventBus;
 import com.example.client.impl.MemoryCacheManager;
+import com.example.client.json.JsonCodec;
 import com.example.model.ApiException;
+import com.example.model.BulkResult;
 import com.example.model.Todo;
 import com.example.model.User;
-import com.google.gson.reflect.TypeToken;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 // client for JSONPlaceholder API
-public class JsonPlaceholderClient extends AbstractHttpClient{
+public class JsonPlaceholderClient extends AbstractHttpClient implements AsyncApiClient {
     private final CacheManager cacheManager;
 
+    // retries and circuit breaking for every API call
+    private final ResilientSender sender = new ResilientSender(httpClient, RetryPolicy.defaults(), new CircuitBreaker());
+
+    // validators of GET responses, lists still cached while reloaded (refresh-ahead, sync) are revalidated
+    private final ValidatorStore validators = new ValidatorStore();
+
+    // successful writes, and entries the cache drops by itself, for consumers that update incrementally
+    private final TodoEventBus events = new TodoEventBus();
+
+    // in-flight loads, so that concurrent cache misses for the same key hit the API once
+    private final SingleFlight<String, List<Todo>> todoListLoads = new SingleFlight<>();
+    private final SingleFlight<Long, Optional<Todo>> todoLoads = new SingleFlight<>();
+    private final SingleFlight<Long, Optional<User>> userLoads = new SingleFlight<>();
+    private static final String ALL_TODOS_KEY = "all";
+
+    // write calls a batch keeps in flight, as many as the default write bulkhead lets through
+    public static final int DEFAULT_BULK_CONCURRENCY = 16;
+    private volatile int bulkConcurrency = DEFAULT_BULK_CONCURRENCY;
+
     // constants for API endpoints
     private static final String TODOS_ENDPOINT = "/todos";
     private static final String USERS_ENDPOINT = "/users";
+    private static final String TODO_PATH = TODOS_ENDPOINT + "/{}";
+    private static final String USER_PATH = USERS_ENDPOINT + "/{}";
+    private static final String USER_TODOS_QUERY = TODOS_ENDPOINT + "?userId={}";
+    private static final String USER_COMPLETED_QUERY = TODOS_ENDPOINT + "?userId={}&completed=true";
+    private static final String USER_PENDING_QUERY = TODOS_ENDPOINT + "?userId={}&completed=false";
 
     // timeouts
     private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(15);
 
+    // headers are validated once, every request only copies them
+    private static final RequestTemplate GET = new RequestTemplate("GET", REQUEST_TIMEOUT,
+            "Accept", "application/json");
+    private static final RequestTemplate POST = new RequestTemplate("POST", REQUEST_TIMEOUT,
+            "Accept", "application/json", "Content-Type", "application/json");
+    private static final RequestTemplate PUT = new RequestTemplate("PUT", REQUEST_TIMEOUT,
+            "Accept", "application/json", "Content-Type", "application/json");
+    private static final RequestTemplate PATCH = new RequestTemplate("PATCH", REQUEST_TIMEOUT,
+            "Accept", "application/json", "Content-Type", "application/json");
+    private static final RequestTemplate DELETE = new RequestTemplate("DELETE", REQUEST_TIMEOUT,
+            "Accept", "application/json");
+
     public JsonPlaceholderClient() {
         super();
         this.cacheManager = new MemoryCacheManager();
+        this.cacheManager.setEventBus(events);
     }
 
     public JsonPlaceholderClient(CacheManager cacheManager) {
         super();
         this.cacheManager = cacheManager != null ? cacheManager : new MemoryCacheManager();
+        this.cacheManager.setEventBus(events);
+    }
+
+    // blocking calls stay on the caller, async ones complete on the executor (virtual threads work best)
+    public JsonPlaceholderClient(CacheManager cacheManager, Executor executor) {
+        super(executor);
+        this.cacheManager = cacheManager != null ? cacheManager : new MemoryCacheManager();
+        this.cacheManager.setEventBus(events);
     }
 
     public JsonPlaceholderClient(HttpClient httpClient, CacheManager cacheManager) {
         super(httpClient);
         this.cacheManager = cacheManager != null ? cacheManager : new MemoryCacheManager();
+        this.cacheManager.setEventBus(events);
     }
 
     @Override
@@ -51,19 +115,33 @@ public class JsonPlaceholderClient extends AbstractHttpClient{
         Optional<List<Todo>> cached = cacheManager.getCachedAllTodos();
         if (cached.isPresent()) {
             System.out.println("Using cached todos");
-            return new ArrayList<>(cached.get());
+            return cached.get();
         }
 
-        try {
-            HttpRequest request = buildGetRequest(buildUrl(TODOS_ENDPOINT));
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            handleResponseError(response);
+        // concurrent misses share one request
+        return todoListLoads.load(ALL_TODOS_KEY, this::fetchAllTodos);
+    }
 
-            List<Todo> todos = GSON.fromJson(response.body(), new TypeToken<List<Todo>>(){}.getType());
-            // save in cache
-            cacheManager.cacheAllTodos(todos);
+    private List<Todo> fetchAllTodos() throws ApiException {
+        long start = System.nanoTime();
+        // only called on a miss, there is no cached list to revalidate
+        List<Todo> todos = loadAllTodos(Optional.empty());
 
-            return todos != null ? todos : new ArrayList<>();
+        // save in cache
+        cacheManager.cacheAllTodos(todos);
+        cacheManager.recordLoadTime(CacheManager.Region.ALL_TODOS, System.nanoTime() - start);
+
+        return todos;
+    }
+
+    // loads all todos from the API, a still cached list is revalidated instead; doesn't write the cache
+    public List<Todo> loadAllTodos() throws ApiException {
+        return loadAllTodos(cacheManager.getCachedAllTodos());
+    }
+
+    private List<Todo> loadAllTodos(Optional<List<Todo>> cached) throws ApiException {
+        try {
+            return loadTodoList(uri(TODOS_ENDPOINT), cached);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new ApiException("Request was interrupted", e);
@@ -80,24 +158,34 @@ public class JsonPlaceholderClient extends AbstractHttpClient{
         Optional<List<Todo>> cached = cacheManager.getCachedUserTodos(userId);
         if (cached.isPresent()) {
             System.out.println("Using cached todos for user " + userId);
-            return new ArrayList<>(cached.get());
+            return cached.get();
         }
 
-        // if it's not in cache -> request it from API
-        try {
-            String url = buildUrl(TODOS_ENDPOINT) + "?userId=" + userId;
-            HttpRequest request = buildGetRequest(url);
+        // if it's not in cache -> request it from API, concurrent misses share one request
+        return todoListLoads.load(userTodosKey(userId), () -> fetchUserTodos(userId));
+    }
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            handleResponseError(response);
+    private List<Todo> fetchUserTodos(Long userId) throws ApiException {
+        long start = System.nanoTime();
+        List<Todo> todos = loadUserTodos(userId, Optional.empty());
 
-            List<Todo> todos = GSON.fromJson(response.body(),
-                    new TypeToken<List<Todo>>(){}.getType());
+        // save in cache
+        cacheManager.cacheUserTodos(userId, todos);
+        cacheManager.recordLoadTime(CacheManager.Region.USER_TODOS, System.nanoTime() - start);
 
-            // save in cache
-            cacheManager.cacheUserTodos(userId, todos);
+        return todos;
+    }
 
-            return todos != null ? todos : new ArrayList<>();
+    // loads users todos from the API, a still cached list is revalidated instead; doesn't write the cache
+    public List<Todo> loadUserTodos(Long userId) throws ApiException {
+        validateUserId(userId);
+
+        return loadUserTodos(userId, cacheManager.getCachedUserTodos(userId));
+    }
+
+    private List<Todo> loadUserTodos(Long userId, Optional<List<Todo>> cached) throws ApiException {
+        try {
+            return loadTodoList(uri(USER_TODOS_QUERY, userId), cached);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new ApiException("Request was interrupted", e);
@@ -106,6 +194,51 @@ public class JsonPlaceholderClient extends AbstractHttpClient{
         }
     }
 
+    // streaming variants: every todo is handed to the consumer as soon as it is parsed,
+    // the full list is never built and nothing is cached. Return the number of todos read
+    public int streamAllTodos(Consumer<? super Todo> consumer) throws ApiException {
+        if (consumer == null)
+            throw new IllegalArgumentException("Consumer cannot be null");
+
+        try {
+            return readTodos(buildGetRequest(uri(TODOS_ENDPOINT)), consumer);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException("Request was interrupted", e);
+        } catch (Exception e) {
+            throw new ApiException("Failed to stream all todos: " + e.getMessage(), e);
+        }
+    }
+
+    public int streamUserTodos(Long userId, Consumer<? super Todo> consumer) throws ApiException {
+        validateUserId(userId);
+        if (consumer == null)
+            throw new IllegalArgumentException("Consumer cannot be null");
+
+        try {
+            return readTodos(buildGetRequest(uri(USER_TODOS_QUERY, userId)), consumer);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException("Request was interrupted", e);
+        } catch (Exception e) {
+            throw new ApiException("Failed to stream users todos: " + e.getMessage(), e);
+        }
+    }
+
+    // pull-based variant, the caller must close the returned reader
+    public TodoStreamReader openAllTodosStream() throws ApiException {
+        try {
+            return openTodosStream(buildGetRequest(uri(TODOS_ENDPOINT)));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException("Request was interrupted", e);
+        } catch (ApiException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ApiException("Failed to open todos stream: " + e.getMessage(), e);
+        }
+    }
+
     @Override
     public Optional<Todo> getTodoById(Long id) throws ApiException {
         validateId(id, "Todo ID");
@@ -117,11 +250,15 @@ public class JsonPlaceholderClient extends AbstractHttpClient{
             return cached;
         }
 
+        return todoLoads.load(id, () -> fetchTodo(id));
+    }
+
+    private Optional<Todo> fetchTodo(Long id) throws ApiException {
         try {
-            String url = buildUrl(TODOS_ENDPOINT + "/" + id);
-            HttpRequest request = buildGetRequest(url);
+            long start = System.nanoTime();
+            HttpRequest request = buildGetRequest(uri(TODO_PATH, id));
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = sender.send(request, HttpResponse.BodyHandlers.ofString());
 
             // 404 is okay for getById, do not throw exception
             if (response.statusCode() == 404) {
@@ -131,14 +268,17 @@ public class JsonPlaceholderClient extends AbstractHttpClient{
             handleResponseError(response);
 
             Todo todo = GSON.fromJson(response.body(), Todo.class);
+
             // save in cache
             if (todo != null)
                 cacheManager.cacheTodo(todo);
+            cacheManager.recordLoadTime(CacheManager.Region.TODO, System.nanoTime() - start);
 
             return Optional.ofNullable(todo);
         } catch (InterruptedException e) {
+            // not an empty result, single-flight waiters would take it for a 404
             Thread.currentThread().interrupt();
-            return Optional.empty();
+            throw new ApiException("Request was interrupted", e);
         } catch (Exception e) {
             throw new ApiException("Failed to get todo by ID: " + e.getMessage(), e);
         }
@@ -150,8 +290,8 @@ public class JsonPlaceholderClient extends AbstractHttpClient{
 
         try {
             String json = GSON.toJson(todo);
-            HttpRequest request = buildPostRequest(buildUrl(TODOS_ENDPOINT), json);
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpRequest request = buildPostRequest(uri(TODOS_ENDPOINT), json);
+            HttpResponse<String> response = sender.send(request, HttpResponse.BodyHandlers.ofString());
             handleResponseError(response);
 
             Todo createdTodo = GSON.fromJson(response.body(), Todo.class);
@@ -160,6 +300,7 @@ public class JsonPlaceholderClient extends AbstractHttpClient{
             if (createdTodo != null) {
                 cacheManager.cacheTodo(createdTodo);
                 cacheManager.clearUserCache(todo.getUserId());
+                created(createdTodo);
             }
 
             return createdTodo;
@@ -178,10 +319,9 @@ public class JsonPlaceholderClient extends AbstractHttpClient{
 
         try {
             String json = GSON.toJson(todo);
-            String url = buildUrl(TODOS_ENDPOINT + "/" + todo.getId());
-            HttpRequest request = buildPutRequest(url, json);
+            HttpRequest request = buildPutRequest(uri(TODO_PATH, todo.getId()), json);
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = sender.send(request, HttpResponse.BodyHandlers.ofString());
             handleResponseError(response);
 
             Todo updatedTodo = GSON.fromJson(response.body(), Todo.class);
@@ -190,6 +330,7 @@ public class JsonPlaceholderClient extends AbstractHttpClient{
             if (updatedTodo != null) {
                 cacheManager.cacheTodo(updatedTodo);
                 cacheManager.clearUserCache(todo.getUserId());
+                updated(updatedTodo);
             }
 
             return updatedTodo;
@@ -209,10 +350,9 @@ public class JsonPlaceholderClient extends AbstractHttpClient{
 
         try {
             String json = GSON.toJson(partialTodo);
-            String url = buildUrl(TODOS_ENDPOINT + "/" + id);
-            HttpRequest request = buildPatchRequest(url, json);
+            HttpRequest request = buildPatchRequest(uri(TODO_PATH, id), json);
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = sender.send(request, HttpResponse.BodyHandlers.ofString());
             handleResponseError(response);
 
             Todo patchedTodo = GSON.fromJson(response.body(), Todo.class);
@@ -222,6 +362,7 @@ public class JsonPlaceholderClient extends AbstractHttpClient{
                 cacheManager.cacheTodo(patchedTodo);
                 if (patchedTodo.getUserId() != null)
                     cacheManager.clearUserCache(patchedTodo.getUserId());
+                updated(patchedTodo);
             }
 
             return patchedTodo;
@@ -238,14 +379,14 @@ public class JsonPlaceholderClient extends AbstractHttpClient{
         validateId(id, "Todo ID");
 
         try {
-            String url = buildUrl(TODOS_ENDPOINT + "/" + id);
-            HttpRequest request = buildDeleteRequest(url);
+            HttpRequest request = buildDeleteRequest(uri(TODO_PATH, id));
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = sender.send(request, HttpResponse.BodyHandlers.ofString());
 
             // 404 means it's already deleted
             if (response.statusCode() == 404) {
                 cacheManager.removeFromCache(id);
+                deleted(id);
                 return true;
             }
 
@@ -254,6 +395,7 @@ public class JsonPlaceholderClient extends AbstractHttpClient{
             // remove from cache
             if (response.statusCode() >= 200 && response.statusCode() < 300) {
                 cacheManager.removeFromCache(id);
+                deleted(id);
                 return true;
             }
 
@@ -266,20 +408,114 @@ public class JsonPlaceholderClient extends AbstractHttpClient{
         }
     }
 
+    // batch writes: one request per item with up to bulkConcurrency in flight, over HTTP/2 they share
+    // a connection; cached lists of each affected user are dropped once per batch instead of per item
+
+    @Override
+    public BulkResult<Todo> createTodos(Collection<Todo> todos) throws ApiException {
+        List<Todo> items = new ArrayList<>(todos);
+        items.forEach(this::validateTodo);
+
+        List<BulkResult.ItemResult<Todo>> results = pipeline(items, todo -> null, todo ->
+                sendAsync(buildPostRequest(uri(TODOS_ENDPOINT), GSON.toJson(todo)), "Failed to create todo",
+                        this::parseWrittenTodo), Long.MAX_VALUE);
+
+        Set<Long> users = new HashSet<>();
+        for (int i = 0; i < results.size(); i++) {
+            Todo created = results.get(i).getValue();
+            if (created == null) continue;
+
+            cacheManager.cacheTodo(created);
+            created(created);
+            users.add(items.get(i).getUserId());
+            // the server assigns ids, report them
+            results.set(i, BulkResult.ItemResult.succeeded(created.getId(), created, 1));
+        }
+        users.forEach(cacheManager::clearUserCache);
+
+        return new BulkResult<>(results);
+    }
+
+    @Override
+    public BulkResult<Todo> patchTodos(Map<Long, Todo> partialTodos, Duration timeout) throws ApiException {
+        List<Map.Entry<Long, Todo>> items = new ArrayList<>(partialTodos.entrySet());
+        for (Map.Entry<Long, Todo> item : items) {
+            validateId(item.getKey(), "Todo ID");
+            if (item.getValue() == null)
+                throw new IllegalArgumentException("Partial todo cannot be null");
+        }
+
+        List<BulkResult.ItemResult<Todo>> results = pipeline(items, Map.Entry::getKey, item ->
+                sendAsync(buildPatchRequest(uri(TODO_PATH, item.getKey()), GSON.toJson(item.getValue())),
+                        "Failed to patch todo", this::parseWrittenTodo), deadlineOf(timeout));
+
+        Set<Long> users = new HashSet<>();
+        for (BulkResult.ItemResult<Todo> result : results) {
+            Todo patched = result.getValue();
+            if (patched == null) continue;
+
+            cacheManager.cacheTodo(patched);
+            updated(patched);
+            if (patched.getUserId() != null)
+                users.add(patched.getUserId());
+        }
+        users.forEach(cacheManager::clearUserCache);
+
+        return new BulkResult<>(results);
+    }
+
+    @Override
+    public BulkResult<Boolean> deleteTodos(Collection<Long> ids, Duration timeout) throws ApiException {
+        List<Long> items = new ArrayList<>(ids);
+        items.forEach(id -> validateId(id, "Todo ID"));
+
+        List<BulkResult.ItemResult<Boolean>> results = pipeline(items, id -> id, id ->
+                sendAsync(buildDeleteRequest(uri(TODO_PATH, id)), "Failed to delete todo", response -> {
+                    // 404 means it's already deleted
+                    if (response.statusCode() != 404)
+                        handleResponseError(response);
+                    return true;
+                }), deadlineOf(timeout));
+
+        List<Long> deletedIds = results.stream()
+                .filter(BulkResult.ItemResult::isSucceeded)
+                .map(BulkResult.ItemResult::getId)
+                .toList();
+        cacheManager.removeFromCache(deletedIds);
+        deletedIds.forEach(this::deleted);
+
+        return new BulkResult<>(results);
+    }
+
     @Override
     public List<Todo> getTodosByCompletion(Long userId, boolean completed) throws ApiException {
         validateUserId(userId);
 
+        // answered from the local indexes when the cache maintains them,
+        // one list request warms them for every later completion query of this user
+        Optional<TodoStore> store = cacheManager.getTodoStore();
+        if (store.isPresent()) {
+            if (!store.get().isLoaded(userId)) {
+                List<Todo> todos = getUserTodos(userId);
+
+                // the list may have been evicted right away in a bounded cache
+                if (!store.get().isLoaded(userId)) {
+                    return todos.stream()
+                            .filter(todo -> Boolean.valueOf(completed).equals(todo.getCompleted()))
+                            .collect(Collectors.toList());
+                }
+            }
+
+            return store.get().getByCompletion(userId, completed);
+        }
+
         try {
-            String url = buildUrl(TODOS_ENDPOINT +
-                    "?userId=" + userId +
-                    "%completed=" + completed);
-            HttpRequest request = buildGetRequest(url);
+            HttpRequest request = buildGetRequest(uri(completed ? USER_COMPLETED_QUERY : USER_PENDING_QUERY, userId));
 
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpResponse<String> response = sender.send(request, HttpResponse.BodyHandlers.ofString());
             handleResponseError(response);
 
-            List<Todo> todos = GSON.fromJson(response.body(), new TypeToken<List<Todo>>(){}.getType());
+            List<Todo> todos = GSON.fromJson(response.body(), JsonCodec.TODO_LIST);
 
             return todos != null ? todos : new ArrayList<>();
         } catch (InterruptedException e) {
@@ -293,11 +529,11 @@ public class JsonPlaceholderClient extends AbstractHttpClient{
     @Override
     public List<User> getAllUsers() throws ApiException {
         try {
-            HttpRequest request = buildGetRequest(buildUrl(USERS_ENDPOINT));
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpRequest request = buildGetRequest(uri(USERS_ENDPOINT));
+            HttpResponse<String> response = sender.send(request, HttpResponse.BodyHandlers.ofString());
             handleResponseError(response);
 
-            List<User> users = GSON.fromJson(response.body(), new TypeToken<List<User>>(){}.getType());
+            List<User> users = GSON.fromJson(response.body(), JsonCodec.USER_LIST);
 
             return users != null ? users : new ArrayList<>();
         } catch (InterruptedException e) {
@@ -312,21 +548,24 @@ public class JsonPlaceholderClient extends AbstractHttpClient{
     public Optional<User> getUserById(Long id) throws ApiException {
         validateId(id, "User ID");
 
+        return userLoads.load(id, () -> fetchUser(id));
+    }
+
+    private Optional<User> fetchUser(Long id) throws ApiException {
         try {
-            String url = buildUrl(USERS_ENDPOINT + "/" + id);
-            HttpRequest request = buildGetRequest(url);
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            HttpRequest request = buildGetRequest(uri(USER_PATH, id));
+            HttpResponse<String> response = sender.send(request, HttpResponse.BodyHandlers.ofString());
 
-            if (response.statusCode() == 400)
+            if (response.statusCode() == 404)
                 return Optional.empty();
 
             handleResponseError(response);
 
-            User user = GSON.fromJson(response.body(), User.class);
-            return Optional.ofNullable(user);
+            return Optional.ofNullable(GSON.fromJson(response.body(), User.class));
         } catch (InterruptedException e) {
+            // not an empty result, single-flight waiters would take it for a 404
             Thread.currentThread().interrupt();
-            return Optional.empty();
+            throw new ApiException("Request was interrupted", e);
         } catch (Exception e) {
             throw new ApiException("Failed to get user by ID: " + e.getMessage(), e);
         }
@@ -335,7 +574,7 @@ public class JsonPlaceholderClient extends AbstractHttpClient{
     @Override
     public boolean testConnection() throws ApiException {
         try {
-            HttpRequest request = buildGetRequest(buildUrl(TODOS_ENDPOINT + "/1"));
+            HttpRequest request = buildGetRequest(uri(TODO_PATH, 1));
 
             // async request with timer
             CompletableFuture<HttpResponse<String>> future =
@@ -352,72 +591,436 @@ public class JsonPlaceholderClient extends AbstractHttpClient{
         }
     }
 
+    // async methods
+
+    @Override
+    public CompletableFuture<List<Todo>> getAllTodosAsync() {
+        Optional<List<Todo>> cached = cacheManager.getCachedAllTodos();
+        if (cached.isPresent())
+            return CompletableFuture.completedFuture(cached.get());
+
+        return todoListLoads.loadAsync(ALL_TODOS_KEY, this::fetchAllTodosAsync);
+    }
+
+    private CompletableFuture<List<Todo>> fetchAllTodosAsync() {
+        long start = System.nanoTime();
+        return loadTodoListAsync(buildGetRequest(uri(TODOS_ENDPOINT)), "Failed to get all todos")
+                .thenApply(todos -> {
+                    cacheManager.cacheAllTodos(todos);
+                    cacheManager.recordLoadTime(CacheManager.Region.ALL_TODOS, System.nanoTime() - start);
+                    return todos;
+                });
+    }
+
+    @Override
+    public CompletableFuture<List<Todo>> getUserTodosAsync(Long userId) {
+        validateUserId(userId);
+
+        Optional<List<Todo>> cached = cacheManager.getCachedUserTodos(userId);
+        if (cached.isPresent())
+            return CompletableFuture.completedFuture(cached.get());
+
+        return todoListLoads.loadAsync(userTodosKey(userId), () -> fetchUserTodosAsync(userId));
+    }
+
+    private CompletableFuture<List<Todo>> fetchUserTodosAsync(Long userId) {
+        long start = System.nanoTime();
+        HttpRequest request = buildGetRequest(uri(USER_TODOS_QUERY, userId));
+        return loadTodoListAsync(request, "Failed to get users todos")
+                .thenApply(todos -> {
+                    cacheManager.cacheUserTodos(userId, todos);
+                    cacheManager.recordLoadTime(CacheManager.Region.USER_TODOS, System.nanoTime() - start);
+                    return todos;
+                });
+    }
+
+    @Override
+    public CompletableFuture<Optional<Todo>> getTodoByIdAsync(Long id) {
+        validateId(id, "Todo ID");
+
+        Optional<Todo> cached = cacheManager.getCachedTodo(id);
+        if (cached.isPresent())
+            return CompletableFuture.completedFuture(cached);
+
+        return todoLoads.loadAsync(id, () -> fetchTodoAsync(id));
+    }
+
+    private CompletableFuture<Optional<Todo>> fetchTodoAsync(Long id) {
+        long start = System.nanoTime();
+        HttpRequest request = buildGetRequest(uri(TODO_PATH, id));
+        return sendAsync(request, "Failed to get todo by ID", response -> {
+                    // 404 is okay for getById
+                    if (response.statusCode() == 404)
+                        return Optional.<Todo>empty();
+
+                    handleResponseError(response);
+
+                    return Optional.ofNullable(GSON.fromJson(response.body(), Todo.class));
+                })
+                .thenApply(todo -> {
+                    todo.ifPresent(cacheManager::cacheTodo);
+                    cacheManager.recordLoadTime(CacheManager.Region.TODO, System.nanoTime() - start);
+                    return todo;
+                });
+    }
+
+    @Override
+    public CompletableFuture<Todo> createTodoAsync(Todo todo) {
+        validateTodo(todo);
+
+        HttpRequest request = buildPostRequest(uri(TODOS_ENDPOINT), GSON.toJson(todo));
+        return sendAsync(request, "Failed to create todo", response -> {
+            handleResponseError(response);
+
+            Todo createdTodo = GSON.fromJson(response.body(), Todo.class);
+            if (createdTodo != null) {
+                cacheManager.cacheTodo(createdTodo);
+                cacheManager.clearUserCache(todo.getUserId());
+                created(createdTodo);
+            }
+
+            return createdTodo;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Todo> updateTodoAsync(Todo todo) {
+        validateTodo(todo);
+        validateId(todo.getId(), "Todo ID");
+
+        HttpRequest request = buildPutRequest(uri(TODO_PATH, todo.getId()), GSON.toJson(todo));
+        return sendAsync(request, "Failed to update todo", response -> {
+            handleResponseError(response);
+
+            Todo updatedTodo = GSON.fromJson(response.body(), Todo.class);
+            if (updatedTodo != null) {
+                cacheManager.cacheTodo(updatedTodo);
+                cacheManager.clearUserCache(todo.getUserId());
+                updated(updatedTodo);
+            }
+
+            return updatedTodo;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Todo> patchTodoAsync(Long id, Todo partialTodo) {
+        validateId(id, "Todo ID");
+        if (partialTodo == null)
+            throw new IllegalArgumentException("Partial todo cannot be null");
+
+        HttpRequest request = buildPatchRequest(uri(TODO_PATH, id), GSON.toJson(partialTodo));
+        return sendAsync(request, "Failed to patch todo", response -> {
+            handleResponseError(response);
+
+            Todo patchedTodo = GSON.fromJson(response.body(), Todo.class);
+            if (patchedTodo != null) {
+                cacheManager.cacheTodo(patchedTodo);
+                if (patchedTodo.getUserId() != null)
+                    cacheManager.clearUserCache(patchedTodo.getUserId());
+                updated(patchedTodo);
+            }
+
+            return patchedTodo;
+        });
+    }
+
+    @Override
+    public CompletableFuture<Boolean> deleteTodoAsync(Long id) {
+        validateId(id, "Todo ID");
+
+        HttpRequest request = buildDeleteRequest(uri(TODO_PATH, id));
+        return sendAsync(request, "Failed to delete todo", response -> {
+            // 404 means it's already deleted
+            if (response.statusCode() == 404) {
+                cacheManager.removeFromCache(id);
+                deleted(id);
+                return true;
+            }
+
+            handleResponseError(response);
+
+            cacheManager.removeFromCache(id);
+            deleted(id);
+            return true;
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<Todo>> getTodosByCompletionAsync(Long userId, boolean completed) {
+        validateUserId(userId);
+
+        Optional<List<Todo>> indexed = getIndexedByCompletion(userId, completed);
+        if (indexed.isPresent())
+            return CompletableFuture.completedFuture(indexed.get());
+
+        HttpRequest request = buildGetRequest(uri(completed ? USER_COMPLETED_QUERY : USER_PENDING_QUERY, userId));
+        return sendAsync(request, "Failed to get todos by completion", response -> {
+            handleResponseError(response);
+            return parseTodos(response.body());
+        });
+    }
+
+    @Override
+    public CompletableFuture<List<User>> getAllUsersAsync() {
+        HttpRequest request = buildGetRequest(uri(USERS_ENDPOINT));
+        return sendAsync(request, "Failed to get all users", response -> {
+            handleResponseError(response);
+
+            List<User> users = GSON.fromJson(response.body(), JsonCodec.USER_LIST);
+            return users != null ? users : new ArrayList<>();
+        });
+    }
+
+    @Override
+    public CompletableFuture<Optional<User>> getUserByIdAsync(Long id) {
+        validateId(id, "User ID");
+
+        return userLoads.loadAsync(id, () -> fetchUserAsync(id));
+    }
+
+    private CompletableFuture<Optional<User>> fetchUserAsync(Long id) {
+        HttpRequest request = buildGetRequest(uri(USER_PATH, id));
+        return sendAsync(request, "Failed to get user by ID", response -> {
+            if (response.statusCode() == 404)
+                return Optional.empty();
+
+            handleResponseError(response);
+
+            return Optional.ofNullable(GSON.fromJson(response.body(), User.class));
+        });
+    }
+
+    // unwraps the ApiException a failed future of this client completes with
+    public static ApiException unwrapFailure(Throwable error) {
+        Throwable cause = error;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException)
+                && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+
+        return cause instanceof ApiException apiException ?
+                apiException :
+                new ApiException("Async request failed: " + cause.getMessage(), cause);
+    }
+
     // helpers
 
-    private HttpRequest buildGetRequest(String url) {
-        return HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("Accept", "application/json")
-                .header("Content-Type", "application-json")
-                .timeout(REQUEST_TIMEOUT)
-                .GET().build();
-    }
-
-    private HttpRequest buildPostRequest(String url, String body) {
-        return HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("Accept", "application/json")
-                .header("Content-Type", "application-json")
-                .timeout(REQUEST_TIMEOUT)
-                .POST(HttpRequest.BodyPublishers.ofString(body))
-                .build();
-    }
-
-    private HttpRequest buildPutRequest(String utl, String body) {
-        return HttpRequest.newBuilder()
-                .uri(URI.create(utl))
-                .header("Accept", "application-json")
-                .header("Content-Type", "application-json")
-                .timeout(REQUEST_TIMEOUT)
-                .PUT(HttpRequest.BodyPublishers.ofString(body))
-                .build();
-    }
-
-    private HttpRequest buildPatchRequest(String url, String body) {
-        return HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("Accept", "application-json")
-                .header("Content-Type", "application-json")
-                .timeout(REQUEST_TIMEOUT)
-                .method("PATCH", HttpRequest.BodyPublishers.ofString(body))
-                .build();
-    }
-
-    private HttpRequest buildDeleteRequest(String url) {
-        return HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("Accept", "application-json")
-                .header("Content-Type", "application-json")
-                .timeout(REQUEST_TIMEOUT)
-                .DELETE().build();
+    private HttpRequest buildGetRequest(URI uri) {
+        return GET.build(uri);
+    }
+
+    private HttpRequest buildPostRequest(URI uri, String body) {
+        return POST.build(uri, body);
+    }
+
+    private HttpRequest buildPutRequest(URI uri, String body) {
+        return PUT.build(uri, body);
+    }
+
+    private HttpRequest buildPatchRequest(URI uri, String body) {
+        return PATCH.build(uri, body);
+    }
+
+    private HttpRequest buildDeleteRequest(URI uri) {
+        return DELETE.build(uri);
+    }
+
+    // maps a response inside an async pipeline, may throw ApiException
+    @FunctionalInterface
+    private interface ResponseHandler<T> {
+        T handle(HttpResponse<String> response) throws Exception;
+    }
+
+    private <T> CompletableFuture<T> sendAsync(HttpRequest request, String errorMessage,
+                                               ResponseHandler<T> handler) {
+        return sender.sendAsync(request, HttpResponse.BodyHandlers.ofString())
+                .handle((response, error) -> {
+                    if (error != null) {
+                        Throwable cause = error instanceof CompletionException && error.getCause() != null ?
+                                error.getCause() :
+                                error;
+                        throw new CompletionException(
+                                new ApiException(errorMessage + ": " + cause.getMessage(), cause));
+                    }
+
+                    try {
+                        return handler.handle(response);
+                    } catch (ApiException e) {
+                        throw new CompletionException(e);
+                    } catch (Exception e) {
+                        throw new CompletionException(new ApiException(errorMessage + ": " + e.getMessage(), e));
+                    }
+                });
+    }
+
+    // sends one call per item, blocking while `bulkConcurrency` calls are in flight;
+    // outcomes keep the order of the items, failed ones are reported under idOf(item).
+    // Calls not done by the deadline (Long.MAX_VALUE for none) are cancelled, later items not sent
+    private <I, T> List<BulkResult.ItemResult<T>> pipeline(List<I> items, Function<I, Long> idOf,
+                                                         Function<I, CompletableFuture<T>> call, long deadline)
+            throws ApiException {
+        Semaphore window = new Semaphore(bulkConcurrency);
+        List<CompletableFuture<T>> futures = new ArrayList<>(items.size());
+        try {
+            for (I item : items) {
+                if (!window.tryAcquire(remainingNanos(deadline), TimeUnit.NANOSECONDS)) break;
+                futures.add(call.apply(item).whenComplete((value, error) -> window.release()));
+            }
+
+            List<BulkResult.ItemResult<T>> results = new ArrayList<>(items.size());
+            for (int i = 0; i < items.size(); i++) {
+                Long id = idOf.apply(items.get(i));
+                if (i >= futures.size()) {
+                    results.add(BulkResult.ItemResult.failed(id, ApiClient.missedDeadline(id), 0));
+                    continue;
+                }
+
+                try {
+                    T value = futures.get(i).get(remainingNanos(deadline), TimeUnit.NANOSECONDS);
+                    results.add(BulkResult.ItemResult.succeeded(id, value, 1));
+                } catch (TimeoutException e) {
+                    futures.get(i).cancel(true);
+                    results.add(BulkResult.ItemResult.failed(id, ApiClient.missedDeadline(id), 1));
+                } catch (ExecutionException | CancellationException e) {
+                    results.add(BulkResult.ItemResult.failed(id, unwrapFailure(e), 1));
+                }
+            }
+            return results;
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new ApiException("Batch was interrupted", e);
+        }
+    }
+
+    private static long remainingNanos(long deadline) {
+        return deadline == Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(0, deadline - System.nanoTime());
+    }
+
+    private static long deadlineOf(Duration timeout) {
+        return timeout != null ? System.nanoTime() + timeout.toNanos() : Long.MAX_VALUE;
+    }
+
+    private Todo parseWrittenTodo(HttpResponse<String> response) throws ApiException {
+        handleResponseError(response);
+        return GSON.fromJson(response.body(), Todo.class);
+    }
+
+    // streams a todo list; a cached one is revalidated and kept on a 304, without it nothing could answer one
+    private List<Todo> loadTodoList(URI uri, Optional<List<Todo>> cached)
+            throws IOException, InterruptedException, ApiException {
+        HttpRequest request = buildGetRequest(uri);
+        HttpResponse<InputStream> response = sender.send(
+                cached.isPresent() ? validators.conditional(request) : request,
+                HttpResponse.BodyHandlers.ofInputStream());
+
+        if (cached.isPresent() && validators.notModified(response)) {
+            response.body().close();
+            return cached.get();
+        }
+
+        List<Todo> todos = new ArrayList<>();
+        try (TodoStreamReader reader = openTodosStream(response)) {
+            reader.forEachRemaining(todos::add);
+        }
+
+        // one read-only list for the cache and every caller sharing the load
+        validators.remember(response);
+        return Collections.unmodifiableList(todos);
+    }
+
+    // only called on a miss, so never conditional; the validators are kept for later revalidations
+    private CompletableFuture<List<Todo>> loadTodoListAsync(HttpRequest request, String errorMessage) {
+        return sendAsync(request, errorMessage, response -> {
+            handleResponseError(response);
+
+            validators.remember(response);
+            return Collections.unmodifiableList(parseTodos(response.body()));
+        });
+    }
+
+    private int readTodos(HttpRequest request, Consumer<? super Todo> consumer)
+            throws IOException, InterruptedException, ApiException {
+        int count = 0;
+        try (TodoStreamReader todos = openTodosStream(request)) {
+            while (todos.hasNext()) {
+                consumer.accept(todos.next());
+                count++;
+            }
+        }
+
+        return count;
+    }
+
+    private TodoStreamReader openTodosStream(HttpRequest request)
+            throws IOException, InterruptedException, ApiException {
+        return openTodosStream(sender.send(request, HttpResponse.BodyHandlers.ofInputStream()));
+    }
+
+    private TodoStreamReader openTodosStream(HttpResponse<InputStream> response) throws IOException, ApiException {
+        InputStream body = response.body();
+
+        int statusCode = response.statusCode();
+        if (statusCode < 200 || statusCode >= 300) {
+            // error bodies are small, read them whole for the message
+            try (body) {
+                handleResponseError(statusCode, new String(body.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+
+        return new TodoStreamReader(body);
+    }
+
+    // write events, only created when somebody listens
+    private void created(Todo todo) {
+        if (events.hasSubscribers())
+            events.publish(new TodoEvent.TodoCreated(todo));
+    }
+
+    private void updated(Todo todo) {
+        if (events.hasSubscribers())
+            events.publish(new TodoEvent.TodoUpdated(todo));
+    }
+
+    private void deleted(Long id) {
+        if (events.hasSubscribers())
+            events.publish(new TodoEvent.TodoDeleted(id));
+    }
+
+    private Optional<List<Todo>> getIndexedByCompletion(Long userId, boolean completed) {
+        return cacheManager.getTodoStore()
+                .filter(store -> store.isLoaded(userId))
+                .map(store -> store.getByCompletion(userId, completed));
+    }
+
+    private static String userTodosKey(Long userId) {
+        return "user:" + userId;
+    }
+
+    private List<Todo> parseTodos(String body) {
+        List<Todo> todos = GSON.fromJson(body, JsonCodec.TODO_LIST);
+        return todos != null ? todos : new ArrayList<>();
     }
 
     // validation & error handling
 
     private void handleResponseError(HttpResponse<String> response) throws ApiException {
-        int statusCode = response.statusCode();
+        handleResponseError(response.statusCode(), response.body());
+    }
 
+    private void handleResponseError(int statusCode, String body) throws ApiException {
         if (statusCode >= 200 && statusCode < 300)
             return;
 
         String message = "HTTP Error " + statusCode;
-        if (response.body() != null && !response.body().isEmpty()) {
+        if (body != null && !body.isEmpty()) {
             try {
-                var errorObj = GSON.fromJson(response.body(), java.util.Map.class);
+                var errorObj = GSON.fromJson(body, java.util.Map.class);
                 if (errorObj != null && errorObj.containsKey("message"))
                     message += ": " + errorObj.get("message");
             } catch (Exception e) {
-                message += ": " + response.body();
+                message += ": " + body;
             }
         }
 
@@ -443,6 +1046,41 @@ public class JsonPlaceholderClient extends AbstractHttpClient{
             throw new IllegalArgumentException("Todo title cannot be empty");
     }
 
+    // serve stale lists for up to hardTtlMillis while they are reloaded in the background,
+    // only supported when the client uses a MemoryCacheManager
+    public void enableRefreshAhead(long softTtlMillis, long hardTtlMillis) {
+        if (!(cacheManager instanceof MemoryCacheManager memoryCache))
+            throw new IllegalStateException("Refresh-ahead requires a MemoryCacheManager");
+
+        memoryCache.enableRefreshAhead(softTtlMillis, hardTtlMillis, new CacheLoader() {
+            @Override
+            public List<Todo> loadAllTodos() throws ApiException {
+                return JsonPlaceholderClient.this.loadAllTodos();
+            }
+
+            @Override
+            public List<Todo> loadUserTodos(Long userId) throws ApiException {
+                return JsonPlaceholderClient.this.loadUserTodos(userId);
+            }
+        });
+    }
+
     // getter
     public CacheManager getCacheManager() { return cacheManager; }
+
+    public ResilientSender getResilience() { return sender; }
+
+    public RequestThrottle getThrottle() { return sender.getThrottle(); }
+
+    public int getBulkConcurrency() { return bulkConcurrency; }
+
+    public void setBulkConcurrency(int bulkConcurrency) {
+        if (bulkConcurrency <= 0)
+            throw new IllegalArgumentException("Bulk concurrency must be positive: " + bulkConcurrency);
+        this.bulkConcurrency = bulkConcurrency;
+    }
+
+    public ValidatorStore getValidators() { return validators; }
+
+    public TodoEventBus getEvents() { return events; }
 }
@@ -0,0 +1,45 @@
+package com.example.client;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+
+/*
+    Method, headers and timeout of one kind of request, validated once on a prototype builder.
+    Every request copies the prototype and only sets its uri and body
+ */
+public final class RequestTemplate {
+    private final String method;
+    private final HttpRequest.Builder prototype;
+
+    // headers as name, value pairs
+    public RequestTemplate(String method, Duration timeout, String... headers) {
+        this.method = method;
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder().timeout(timeout);
+        if (headers.length > 0)
+            builder.headers(headers);
+        // body methods get theirs per request
+        if ("GET".equals(method))
+            builder.GET();
+        else if ("DELETE".equals(method))
+            builder.DELETE();
+        this.prototype = builder;
+    }
+
+    public HttpRequest build(URI uri) {
+        if (!"GET".equals(method) && !"DELETE".equals(method))
+            return build(uri, "");
+
+        return prototype.copy().uri(uri).build();
+    }
+
+    public HttpRequest build(URI uri, String body) {
+        return prototype.copy()
+                .uri(uri)
+                .method(method, HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    public String getMethod() { return method; }
+}
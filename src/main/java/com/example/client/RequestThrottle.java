@@ -0,0 +1,250 @@
+package com.example.client;
+
+import com.example.client.impl.LatencyHistogram;
+import com.example.model.ApiException;
+
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Per endpoint family rate limit (token bucket) and bulkhead (max requests in flight).
+    Families are limited separately, so a bulk delete queues behind the write limits
+    while getTodoById still goes straight through the read ones.
+    A request that would wait longer than `maxWait` is rejected instead of queued
+ */
+public class RequestThrottle {
+    public enum Family { TODO_READS, TODO_WRITES, USERS }
+
+    // async callers wait for permits here, a blocked virtual thread costs next to nothing
+    private static final ExecutorService WAITERS =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("throttle-wait-", 1).factory());
+
+    private final Map<Family, Limiter> limiters = new EnumMap<>(Family.class);
+
+    // a permit for one request, closing it (once or more) frees the bulkhead slot
+    @FunctionalInterface
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private static final Permit NO_PERMIT = () -> {};
+
+    // reads: 64 in flight, unlimited rate; writes: 50 per second, 16 in flight; users: 32 in flight
+    public RequestThrottle() {
+        putLimits(Family.TODO_READS, 0, 0, 64, Duration.ofSeconds(30));
+        putLimits(Family.TODO_WRITES, 50, 50, 16, Duration.ofSeconds(30));
+        putLimits(Family.USERS, 0, 0, 32, Duration.ofSeconds(30));
+    }
+
+    public static RequestThrottle unlimited() {
+        RequestThrottle throttle = new RequestThrottle();
+        for (Family family : Family.values()) {
+            throttle.setLimits(family, 0, 0, 0, Duration.ofSeconds(30));
+        }
+        return throttle;
+    }
+
+    // 0 rate or 0 max in flight means no limit of that kind
+    public synchronized void setLimits(Family family, double permitsPerSecond, int burst, int maxInFlight,
+                                       Duration maxWait) {
+        putLimits(family, permitsPerSecond, burst, maxInFlight, maxWait);
+    }
+
+    // private, so the constructor doesn't call anything a subclass could override
+    private void putLimits(Family family, double permitsPerSecond, int burst, int maxInFlight, Duration maxWait) {
+        if (permitsPerSecond < 0 || maxInFlight < 0)
+            throw new IllegalArgumentException("Limits cannot be negative");
+        if (maxWait == null || maxWait.isNegative())
+            throw new IllegalArgumentException("Max wait cannot be negative: " + maxWait);
+
+        limiters.put(family, new Limiter(family,
+                permitsPerSecond > 0 ? new TokenBucket(permitsPerSecond, Math.max(1, burst)) : null,
+                maxInFlight, maxWait.toNanos()));
+    }
+
+    public static Family classify(HttpRequest request) {
+        String path = request.uri().getPath();
+        if (path.startsWith("/users") && !path.endsWith("/todos"))
+            return Family.USERS;
+
+        return "GET".equals(request.method()) || "HEAD".equals(request.method()) ?
+                Family.TODO_READS :
+                Family.TODO_WRITES;
+    }
+
+    // blocks until the request may be sent
+    public Permit acquire(HttpRequest request) throws InterruptedException, ApiException {
+        return limiter(request).acquire();
+    }
+
+    public CompletableFuture<Permit> acquireAsync(HttpRequest request) {
+        Limiter limiter = limiter(request);
+
+        Permit permit = limiter.tryAcquire();
+        if (permit != null)
+            return CompletableFuture.completedFuture(permit);
+
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(new ApiException("Waiting for a request slot was interrupted", e));
+            } catch (ApiException e) {
+                throw new CompletionException(e);
+            }
+        }, WAITERS);
+    }
+
+    public synchronized Stats getStats(Family family) {
+        return limiters.get(family).stats();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder result = new StringBuilder("Throttle{");
+        for (Family family : Family.values()) {
+            if (family.ordinal() > 0) result.append(", ");
+            result.append(family).append('=').append(getStats(family));
+        }
+        return result.append('}').toString();
+    }
+
+    // helpers
+    private synchronized Limiter limiter(HttpRequest request) {
+        return limiters.get(classify(request));
+    }
+
+    private static class Limiter {
+        private final Family family;
+        private final TokenBucket bucket;
+        private final Semaphore slots;
+        private final int maxInFlight;
+        private final long maxWaitNanos;
+
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final LongAdder acquiredCount = new LongAdder();
+        private final LongAdder rejectedCount = new LongAdder();
+        private final LatencyHistogram waitTimes = new LatencyHistogram();
+
+        private Limiter(Family family, TokenBucket bucket, int maxInFlight, long maxWaitNanos) {
+            this.family = family;
+            this.bucket = bucket;
+            this.slots = maxInFlight > 0 ? new Semaphore(maxInFlight, true) : null;
+            this.maxInFlight = maxInFlight;
+            this.maxWaitNanos = maxWaitNanos;
+        }
+
+        // null if the request would have to wait
+        private Permit tryAcquire() {
+            if (slots != null && !slots.tryAcquire())
+                return null;
+            if (bucket != null && !bucket.tryAcquire()) {
+                if (slots != null) slots.release();
+                return null;
+            }
+
+            acquiredCount.increment();
+            waitTimes.record(0);
+            return permit();
+        }
+
+        private Permit acquire() throws InterruptedException, ApiException {
+            long start = System.nanoTime();
+            waiting.incrementAndGet();
+            try {
+                if (slots != null && !slots.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS))
+                    throw reject();
+
+                // the slot is held while waiting for a token, so the rate applies to what is sent
+                if (bucket != null) {
+                    long waitNanos = bucket.reserve(Math.max(0, maxWaitNanos - (System.nanoTime() - start)));
+                    if (waitNanos < 0) {
+                        if (slots != null) slots.release();
+                        throw reject();
+                    }
+
+                    try {
+                        TimeUnit.NANOSECONDS.sleep(waitNanos);
+                    } catch (InterruptedException e) {
+                        if (slots != null) slots.release();
+                        throw e;
+                    }
+                }
+            } finally {
+                waiting.decrementAndGet();
+            }
+
+            acquiredCount.increment();
+            waitTimes.record(System.nanoTime() - start);
+            return permit();
+        }
+
+        // closing twice must not free two slots
+        private Permit permit() {
+            if (slots == null) return NO_PERMIT;
+
+            AtomicBoolean released = new AtomicBoolean();
+            return () -> {
+                if (released.compareAndSet(false, true))
+                    slots.release();
+            };
+        }
+
+        private ApiException reject() {
+            rejectedCount.increment();
+            return new ApiException("Too many " + family + " requests queued, gave up after " +
+                    TimeUnit.NANOSECONDS.toMillis(maxWaitNanos) + " ms");
+        }
+
+        private Stats stats() {
+            int inFlight = slots != null ? maxInFlight - slots.availablePermits() : 0;
+            return new Stats(waiting.get(), inFlight, acquiredCount.sum(), rejectedCount.sum(),
+                    waitTimes.getPercentileMicros(50), waitTimes.getPercentileMicros(99));
+        }
+    }
+
+    public static class Stats {
+        private final int queued;
+        private final int inFlight;
+        private final long acquiredCount;
+        private final long rejectedCount;
+        private final long waitP50Micros;
+        private final long waitP99Micros;
+
+        public Stats(int queued, int inFlight, long acquiredCount, long rejectedCount,
+                     long waitP50Micros, long waitP99Micros) {
+            this.queued = queued;
+            this.inFlight = inFlight;
+            this.acquiredCount = acquiredCount;
+            this.rejectedCount = rejectedCount;
+            this.waitP50Micros = waitP50Micros;
+            this.waitP99Micros = waitP99Micros;
+        }
+
+        public int getQueued() { return queued; }
+        public int getInFlight() { return inFlight; }
+        public long getAcquiredCount() { return acquiredCount; }
+        public long getRejectedCount() { return rejectedCount; }
+        public long getWaitP50Micros() { return waitP50Micros; }
+        public long getWaitP99Micros() { return waitP99Micros; }
+
+        @Override
+        public String toString() {
+            return String.format("{queued=%d, inFlight=%d, acquired=%d, rejected=%d, wait p50=%.1f ms, p99=%.1f ms}",
+                    queued, inFlight, acquiredCount, rejectedCount, waitP50Micros / 1000.0, waitP99Micros / 1000.0);
+        }
+    }
+}
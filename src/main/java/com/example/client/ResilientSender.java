@@ -0,0 +1,242 @@
+package com.example.client;
+
+import com.example.model.ApiException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Sends requests through the throttle and the circuit breaker, and repeats retryable failures
+    per the retry policy. Every attempt waits for its own throttle permit.
+    The last response is returned as is, even with an error status, so callers keep handling
+    errors the way they did. An open breaker fails the call before anything is sent
+ */
+public class ResilientSender {
+    private final HttpClient httpClient;
+    private volatile RetryPolicy retryPolicy;
+    private volatile CircuitBreaker circuitBreaker;
+    private volatile RequestThrottle throttle;
+
+    private final LongAdder retryCount = new LongAdder();
+    private final LongAdder exhaustedCount = new LongAdder();
+    // {calls, attempts} of blocking sends per thread, so callers can tell the retries of their own calls
+    private final ThreadLocal<long[]> threadAttempts = ThreadLocal.withInitial(() -> new long[2]);
+
+    public ResilientSender(HttpClient httpClient, RetryPolicy retryPolicy, CircuitBreaker circuitBreaker) {
+        this(httpClient, retryPolicy, circuitBreaker, new RequestThrottle());
+    }
+
+    public ResilientSender(HttpClient httpClient, RetryPolicy retryPolicy, CircuitBreaker circuitBreaker,
+                           RequestThrottle throttle) {
+        this.httpClient = httpClient;
+        this.retryPolicy = retryPolicy;
+        this.circuitBreaker = circuitBreaker;
+        this.throttle = throttle;
+    }
+
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler)
+            throws IOException, InterruptedException, ApiException {
+        RetryPolicy policy = retryPolicy;
+        CircuitBreaker breaker = circuitBreaker;
+        RequestThrottle requestThrottle = throttle;
+        boolean retryable = policy.isRetryable(request);
+        long[] attempts = threadAttempts.get();
+        attempts[0]++;
+
+        for (int attempt = 1; ; attempt++) {
+            attempts[1]++;
+            HttpResponse<T> response;
+            RequestThrottle.Permit permit = requestThrottle.acquire(request);
+            try {
+                if (!breaker.tryAcquire())
+                    throw circuitOpen(request);
+
+                response = sendAttempt(request, bodyHandler, breaker);
+            } catch (IOException e) {
+                if (!retryable || attempt >= policy.getMaxAttempts()) {
+                    countExhausted(retryable);
+                    throw e;
+                }
+
+                retryCount.increment();
+                permit.close();
+                Thread.sleep(policy.backoffMillis(attempt));
+                continue;
+            } finally {
+                permit.close();
+            }
+
+            long delay = retryable && policy.isRetryableStatus(response.statusCode()) ?
+                    policy.delayMillis(attempt, response) :
+                    -1;
+            if (delay < 0)
+                return response;
+            if (attempt >= policy.getMaxAttempts()) {
+                exhaustedCount.increment();
+                return response;
+            }
+
+            discard(response);
+            retryCount.increment();
+            Thread.sleep(delay);
+        }
+    }
+
+    public <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                            HttpResponse.BodyHandler<T> bodyHandler) {
+        return sendAsync(request, bodyHandler, retryPolicy, circuitBreaker, throttle, 1);
+    }
+
+    public RetryPolicy getRetryPolicy() { return retryPolicy; }
+    public void setRetryPolicy(RetryPolicy retryPolicy) { this.retryPolicy = retryPolicy; }
+
+    public CircuitBreaker getCircuitBreaker() { return circuitBreaker; }
+    public void setCircuitBreaker(CircuitBreaker circuitBreaker) { this.circuitBreaker = circuitBreaker; }
+
+    public RequestThrottle getThrottle() { return throttle; }
+    public void setThrottle(RequestThrottle throttle) { this.throttle = throttle; }
+
+    public long getRetryCount() { return retryCount.sum(); }
+    // retries of the blocking sends made by the current thread so far
+    public long getThreadRetryCount() {
+        long[] attempts = threadAttempts.get();
+        return attempts[1] - attempts[0];
+    }
+    // calls that still failed after their last attempt
+    public long getExhaustedCount() { return exhaustedCount.sum(); }
+
+    @Override
+    public String toString() {
+        return String.format("Resilience{retries=%d, exhausted=%d, circuit=%s, %s}",
+                getRetryCount(), getExhaustedCount(), circuitBreaker.getStats(), throttle);
+    }
+
+    // helpers
+    private <T> CompletableFuture<HttpResponse<T>> sendAsync(HttpRequest request,
+                                                             HttpResponse.BodyHandler<T> bodyHandler,
+                                                             RetryPolicy policy, CircuitBreaker breaker,
+                                                             RequestThrottle requestThrottle, int attempt) {
+        return requestThrottle.acquireAsync(request).thenCompose(permit -> {
+            if (!breaker.tryAcquire()) {
+                permit.close();
+                return CompletableFuture.failedFuture(circuitOpen(request));
+            }
+
+            CompletableFuture<HttpResponse<T>> sent;
+            try {
+                sent = httpClient.sendAsync(request, bodyHandler);
+            } catch (RuntimeException | Error e) {
+                // rejected before anything was sent, nothing to tell the breaker
+                permit.close();
+                breaker.release();
+                throw e;
+            }
+
+            return sent
+                    .whenComplete((response, error) -> permit.close())
+                    .handle((response, error) -> handleAttempt(request, bodyHandler, policy, breaker,
+                            requestThrottle, attempt, response, error))
+                    .thenCompose(next -> next);
+        });
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> handleAttempt(HttpRequest request,
+                                                                 HttpResponse.BodyHandler<T> bodyHandler,
+                                                                 RetryPolicy policy, CircuitBreaker breaker,
+                                                                 RequestThrottle requestThrottle, int attempt,
+                                                                 HttpResponse<T> response, Throwable error) {
+        boolean retryable = policy.isRetryable(request);
+
+        if (error != null) {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ?
+                    error.getCause() :
+                    error;
+            breaker.onFailure();
+            if (!(cause instanceof IOException) || !retryable || attempt >= policy.getMaxAttempts()) {
+                countExhausted(retryable && cause instanceof IOException);
+                return CompletableFuture.failedFuture(cause);
+            }
+
+            return retryAsync(request, bodyHandler, policy, breaker, requestThrottle, attempt,
+                    policy.backoffMillis(attempt));
+        }
+
+        record(breaker, response.statusCode());
+        long delay = retryable && policy.isRetryableStatus(response.statusCode()) ?
+                policy.delayMillis(attempt, response) :
+                -1;
+        if (delay < 0)
+            return CompletableFuture.completedFuture(response);
+        if (attempt >= policy.getMaxAttempts()) {
+            exhaustedCount.increment();
+            return CompletableFuture.completedFuture(response);
+        }
+
+        discard(response);
+        return retryAsync(request, bodyHandler, policy, breaker, requestThrottle, attempt, delay);
+    }
+
+    private <T> CompletableFuture<HttpResponse<T>> retryAsync(HttpRequest request,
+                                                              HttpResponse.BodyHandler<T> bodyHandler,
+                                                              RetryPolicy policy, CircuitBreaker breaker,
+                                                              RequestThrottle requestThrottle, int attempt,
+                                                              long delayMillis) {
+        retryCount.increment();
+        return CompletableFuture.runAsync(() -> {}, CompletableFuture.delayedExecutor(delayMillis, TimeUnit.MILLISECONDS))
+                .thenCompose(ignored -> sendAsync(request, bodyHandler, policy, breaker, requestThrottle, attempt + 1));
+    }
+
+    // tells the breaker how the attempt went, attempts that ended without an answer or an
+    // I/O failure (interrupts, unexpected errors) give their permit back
+    private <T> HttpResponse<T> sendAttempt(HttpRequest request, HttpResponse.BodyHandler<T> bodyHandler,
+                                            CircuitBreaker breaker) throws IOException, InterruptedException {
+        boolean recorded = false;
+        try {
+            HttpResponse<T> response = httpClient.send(request, bodyHandler);
+            record(breaker, response.statusCode());
+            recorded = true;
+            return response;
+        } catch (IOException e) {
+            breaker.onFailure();
+            recorded = true;
+            throw e;
+        } finally {
+            if (!recorded)
+                breaker.release();
+        }
+    }
+
+    // 5xx means the upstream is struggling, anything else proves it answers
+    private static void record(CircuitBreaker breaker, int statusCode) {
+        if (statusCode >= 500)
+            breaker.onFailure();
+        else
+            breaker.onSuccess();
+    }
+
+    private void countExhausted(boolean retried) {
+        if (retried)
+            exhaustedCount.increment();
+    }
+
+    // streamed bodies hold the connection until closed
+    private static void discard(HttpResponse<?> response) {
+        if (response.body() instanceof Closeable body) {
+            try {
+                body.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static ApiException circuitOpen(HttpRequest request) {
+        return new ApiException("Circuit breaker is open, not sending " + request.method() + " " + request.uri().getPath());
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.client;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/*
+    When and how long to wait before repeating a failed request.
+    Only idempotent methods are retried (a repeated POST would create a second todo), on I/O errors
+    and on 408/429/5xx. Delays grow exponentially up to maxDelay with full jitter, so clients that
+    failed together don't come back together; a server's Retry-After wins when it asks for longer
+ */
+public class RetryPolicy {
+    private static final Set<String> IDEMPOTENT_METHODS = Set.of("GET", "HEAD", "OPTIONS", "PUT", "DELETE");
+    private static final Set<Integer> RETRYABLE_STATUSES = Set.of(408, 429, 500, 502, 503, 504);
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final long maxRetryAfterMillis;
+
+    public RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay, Duration maxRetryAfter) {
+        if (maxAttempts <= 0)
+            throw new IllegalArgumentException("Max attempts must be positive: " + maxAttempts);
+        if (baseDelay.isNegative() || maxDelay.compareTo(baseDelay) < 0)
+            throw new IllegalArgumentException("Invalid delay range: " + baseDelay + ".." + maxDelay);
+
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelay.toMillis();
+        this.maxDelayMillis = maxDelay.toMillis();
+        this.maxRetryAfterMillis = maxRetryAfter.toMillis();
+    }
+
+    // 3 attempts, 100 ms .. 2 s backoff, waits for Retry-After up to 10 s
+    public static RetryPolicy defaults() {
+        return new RetryPolicy(3, Duration.ofMillis(100), Duration.ofSeconds(2), Duration.ofSeconds(10));
+    }
+
+    public static RetryPolicy none() {
+        return new RetryPolicy(1, Duration.ZERO, Duration.ZERO, Duration.ZERO);
+    }
+
+    public int getMaxAttempts() { return maxAttempts; }
+
+    public boolean isRetryable(HttpRequest request) {
+        return maxAttempts > 1 && IDEMPOTENT_METHODS.contains(request.method());
+    }
+
+    public boolean isRetryableStatus(int statusCode) {
+        return RETRYABLE_STATUSES.contains(statusCode);
+    }
+
+    // random delay in [0, min(maxDelay, base * 2^(attempt - 1))], attempt counts from 1
+    public long backoffMillis(int attempt) {
+        long ceiling = baseDelayMillis << Math.min(attempt - 1, 30);
+        if (ceiling <= 0 || ceiling > maxDelayMillis)
+            ceiling = maxDelayMillis;
+
+        return ceiling > 0 ? ThreadLocalRandom.current().nextLong(ceiling + 1) : 0;
+    }
+
+    // delay before retrying this response, -1 if the server asks to wait longer than we are willing to
+    public long delayMillis(int attempt, HttpResponse<?> response) {
+        long backoff = backoffMillis(attempt);
+
+        Optional<Long> retryAfter = response.headers().firstValue("Retry-After").flatMap(RetryPolicy::parseRetryAfter);
+        if (retryAfter.isEmpty())
+            return backoff;
+        if (retryAfter.get() > maxRetryAfterMillis)
+            return -1;
+
+        return Math.max(backoff, retryAfter.get());
+    }
+
+    // Retry-After is either delta seconds or an HTTP date
+    private static Optional<Long> parseRetryAfter(String value) {
+        try {
+            return Optional.of(Math.max(0, Long.parseLong(value.trim()) * 1000));
+        } catch (NumberFormatException e) {
+            try {
+                ZonedDateTime date = ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+                return Optional.of(Math.max(0, date.toInstant().toEpochMilli() - System.currentTimeMillis()));
+            } catch (DateTimeParseException ignored) {
+                return Optional.empty();
+            }
+        }
+    }
+}
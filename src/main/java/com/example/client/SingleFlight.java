@@ -0,0 +1,89 @@
+package com.example.client;
+
+import com.example.model.ApiException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Supplier;
+
+/*
+    Coalesces concurrent loads of the same key: the first caller runs the loader,
+    everyone who asks for the key while it is in flight gets the same result (or failure)
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    // blocking load, runs on the first caller's thread
+    @FunctionalInterface
+    public interface Loader<V> {
+        V load() throws ApiException;
+    }
+
+    public V load(K key, Loader<V> loader) throws ApiException {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null)
+            return await(existing);
+
+        try {
+            V value = loader.load();
+            created.complete(value);
+            return value;
+        } catch (Throwable e) {
+            // errors too, waiters must never be left with a future nobody completes
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    public CompletableFuture<V> loadAsync(K key, Supplier<CompletableFuture<V>> loader) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null)
+            return existing;
+
+        try {
+            loader.get().whenComplete((value, error) -> {
+                if (error != null)
+                    created.completeExceptionally(error);
+                else
+                    created.complete(value);
+                inFlight.remove(key, created);
+            });
+        } catch (RuntimeException | Error e) {
+            created.completeExceptionally(e);
+            inFlight.remove(key, created);
+        }
+
+        return created;
+    }
+
+    public int getInFlightCount() { return inFlight.size(); }
+
+    // helpers
+    private V await(CompletableFuture<V> future) throws ApiException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ApiException("Request was interrupted", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof CompletionException && cause.getCause() != null)
+                cause = cause.getCause();
+
+            if (cause instanceof ApiException apiException)
+                throw apiException;
+            if (cause instanceof RuntimeException runtimeException)
+                throw runtimeException;
+            if (cause instanceof Error error)
+                throw error;
+
+            throw new ApiException("Shared request failed: " + cause.getMessage(), cause);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.client;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/*
+    Trigram inverted index over todo titles, keyed by TodoStore slots.
+    A substring query of 3+ chars intersects the bitsets of its trigrams, so only titles sharing
+    all of them are checked with contains(); shorter queries check the candidate slots directly.
+    Not thread safe, TodoStore guards it with its lock
+ */
+class TitleIndex {
+    static final int RANKS = 4;
+    private static final int GRAM = 3;
+
+    private String[] titles = new String[64];
+    private final Map<String, BitSet> slotsByGram = new HashMap<>();
+
+    void add(int slot, String title) {
+        if (title == null) return;
+
+        if (slot >= titles.length)
+            titles = Arrays.copyOf(titles, Math.max(titles.length * 2, slot + 1));
+
+        String normalized = normalize(title);
+        titles[slot] = normalized;
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            slotsByGram.computeIfAbsent(normalized.substring(i, i + GRAM), g -> new BitSet()).set(slot);
+        }
+    }
+
+    void remove(int slot) {
+        if (slot >= titles.length || titles[slot] == null) return;
+
+        String normalized = titles[slot];
+        for (int i = 0; i + GRAM <= normalized.length(); i++) {
+            String gram = normalized.substring(i, i + GRAM);
+            BitSet gramSlots = slotsByGram.get(gram);
+            if (gramSlots == null) continue;
+
+            gramSlots.clear(slot);
+            if (gramSlots.isEmpty()) slotsByGram.remove(gram);
+        }
+        titles[slot] = null;
+    }
+
+    void clear() {
+        Arrays.fill(titles, null);
+        slotsByGram.clear();
+    }
+
+    // narrows candidates down to the slots whose title contains the (normalized) query
+    void filter(BitSet candidates, String query) {
+        for (int i = 0; i + GRAM <= query.length() && !candidates.isEmpty(); i++) {
+            BitSet gramSlots = slotsByGram.get(query.substring(i, i + GRAM));
+            if (gramSlots == null) {
+                candidates.clear();
+                return;
+            }
+            candidates.and(gramSlots);
+        }
+
+        // trigrams can match out of order, confirm the actual substring
+        for (int slot = candidates.nextSetBit(0); slot >= 0; slot = candidates.nextSetBit(slot + 1)) {
+            if (slot >= titles.length || titles[slot] == null || !titles[slot].contains(query))
+                candidates.clear(slot);
+        }
+    }
+
+    // lower is better: whole title, title prefix, word prefix, anywhere else
+    int rank(int slot, String query) {
+        String title = titles[slot];
+        if (title.equals(query)) return 0;
+        if (title.startsWith(query)) return 1;
+
+        for (int i = title.indexOf(query); i > 0; i = title.indexOf(query, i + 1)) {
+            if (!Character.isLetterOrDigit(title.charAt(i - 1)))
+                return 2;
+        }
+        return 3;
+    }
+
+    static String normalize(String s) {
+        return s.toLowerCase(Locale.ROOT);
+    }
+}
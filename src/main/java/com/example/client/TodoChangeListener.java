@@ -0,0 +1,9 @@
+package com.example.client;
+
+import com.example.model.TodoDelta;
+
+// gets what changed in a user's todos, called on the syncing thread for non-empty deltas only
+@FunctionalInterface
+public interface TodoChangeListener {
+    void onTodosChanged(Long userId, long version, TodoDelta delta);
+}
@@ -0,0 +1,370 @@
+package com.example.client;
+
+import com.example.model.Todo;
+import com.example.model.TodoDelta;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongSupplier;
+
+/*
+    Local indexed copy of cached todos. Every todo gets a slot, secondary indexes are bitsets
+    over slots: one per user and one for the completion flag, plus per-user counters.
+    Completion queries cost O(k/64 + k) for a user with k todos, counts are O(1).
+    Titles go to a trigram index over the same slots for substring search.
+    A user is "loaded" while its full list is known (and younger than the TTL), only then
+    can the store answer user queries instead of the API
+ */
+public class TodoStore {
+    private Todo[] slots = new Todo[64];
+    private int highWater = 0;
+    private int[] freeSlots = new int[16];
+    private int freeCount = 0;
+
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    private final Map<Long, BitSet> slotsByUser = new HashMap<>();
+    private final BitSet completedSlots = new BitSet();
+    // userId -> {total, completed}
+    private final Map<Long, int[]> countsByUser = new HashMap<>();
+    // userId -> time its full list was loaded
+    private final Map<Long, Long> loadedUsers = new HashMap<>();
+    private final TitleIndex titleIndex = new TitleIndex();
+
+    private final LongSupplier ttl;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public TodoStore(LongSupplier ttlMillis) {
+        this.ttl = ttlMillis;
+    }
+
+    // writes
+
+    public void put(Todo todo) {
+        if (todo == null || todo.getId() == null) return;
+
+        lock.writeLock().lock();
+        try {
+            putLocked(todo);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // replaces everything known about the user with the given full list
+    public void replaceUser(Long userId, List<Todo> todos) {
+        if (userId == null || todos == null) return;
+
+        lock.writeLock().lock();
+        try {
+            replaceUserLocked(userId, todos);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // re-indexes only the changed todos of a loaded user, `todos` is the full list for any other user
+    public void applyDelta(Long userId, List<Todo> todos, TodoDelta delta) {
+        if (userId == null || todos == null || delta == null) return;
+
+        lock.writeLock().lock();
+        try {
+            if (!loadedUsers.containsKey(userId)) {
+                replaceUserLocked(userId, todos);
+                return;
+            }
+
+            for (Long id : delta.getRemovedIds()) {
+                Integer slot = slotById.get(id);
+                if (slot != null)
+                    removeSlot(slot);
+            }
+            for (Todo t : delta.getAdded()) {
+                putLocked(t);
+            }
+            for (Todo t : delta.getUpdated()) {
+                putLocked(t);
+            }
+            loadedUsers.put(userId, System.currentTimeMillis());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // replaces the whole store with the full todos collection, every user in it becomes loaded
+    public void replaceAll(List<Todo> todos) {
+        if (todos == null) return;
+
+        lock.writeLock().lock();
+        try {
+            clearLocked();
+
+            long now = System.currentTimeMillis();
+            for (Todo t : todos) {
+                if (t == null || t.getId() == null) continue;
+
+                putLocked(t);
+                if (t.getUserId() != null)
+                    loadedUsers.put(t.getUserId(), now);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // the todo is gone on the server, the owner's list stays complete
+    public void remove(Long id) {
+        if (id == null) return;
+
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.get(id);
+            if (slot != null)
+                removeSlot(slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // the todo was dropped from the cache (expired or evicted), the owner's list is no longer complete
+    public void evict(Long id) {
+        if (id == null) return;
+
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotById.get(id);
+            if (slot == null) return;
+
+            Long userId = slots[slot].getUserId();
+            removeSlot(slot);
+            if (userId != null)
+                loadedUsers.remove(userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            clearLocked();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // queries
+
+    public boolean isLoaded(Long userId) {
+        if (userId == null) return false;
+
+        lock.readLock().lock();
+        try {
+            Long loadedAt = loadedUsers.get(userId);
+            return loadedAt != null && System.currentTimeMillis() - loadedAt <= ttl.getAsLong();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Todo> getByUser(Long userId) {
+        lock.readLock().lock();
+        try {
+            BitSet userSlots = slotsByUser.get(userId);
+            return userSlots != null ? collect(userSlots) : new ArrayList<>();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Todo> getByCompletion(Long userId, boolean completed) {
+        lock.readLock().lock();
+        try {
+            BitSet userSlots = slotsByUser.get(userId);
+            if (userSlots == null) return new ArrayList<>();
+
+            BitSet matching = (BitSet) userSlots.clone();
+            if (completed)
+                matching.and(completedSlots);
+            else
+                matching.andNot(completedSlots);
+
+            return collect(matching);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // user's todos whose title contains the query (case insensitive), best matches first
+    public List<Todo> search(Long userId, String query) {
+        String normalized = TitleIndex.normalize(query == null ? "" : query.trim());
+
+        lock.readLock().lock();
+        try {
+            BitSet userSlots = slotsByUser.get(userId);
+            if (userSlots == null) return new ArrayList<>();
+            if (normalized.isEmpty()) return collect(userSlots);
+
+            BitSet matching = (BitSet) userSlots.clone();
+            titleIndex.filter(matching, normalized);
+
+            // bucket by rank once, ids order each bucket
+            List<List<Todo>> ranked = new ArrayList<>();
+            for (int i = 0; i < TitleIndex.RANKS; i++) {
+                ranked.add(new ArrayList<>());
+            }
+            for (int slot = matching.nextSetBit(0); slot >= 0; slot = matching.nextSetBit(slot + 1)) {
+                ranked.get(titleIndex.rank(slot, normalized)).add(slots[slot]);
+            }
+
+            List<Todo> result = new ArrayList<>(matching.cardinality());
+            for (List<Todo> bucket : ranked) {
+                bucket.sort(Comparator.comparing(Todo::getId));
+                result.addAll(bucket);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countByUser(Long userId) {
+        lock.readLock().lock();
+        try {
+            int[] counts = countsByUser.get(userId);
+            return counts != null ? counts[0] : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countCompleted(Long userId) {
+        lock.readLock().lock();
+        try {
+            int[] counts = countsByUser.get(userId);
+            return counts != null ? counts[1] : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slotById.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // helpers, callers hold the lock
+
+    private void replaceUserLocked(Long userId, List<Todo> todos) {
+        BitSet previous = slotsByUser.get(userId);
+        if (previous != null) {
+            for (int slot : previous.stream().toArray()) {
+                removeSlot(slot);
+            }
+        }
+
+        for (Todo t : todos) {
+            if (t != null && t.getId() != null)
+                putLocked(t);
+        }
+        loadedUsers.put(userId, System.currentTimeMillis());
+    }
+
+    private void putLocked(Todo todo) {
+        Integer existing = slotById.get(todo.getId());
+        if (existing != null)
+            removeSlot(existing);
+
+        int slot = allocateSlot();
+        slots[slot] = todo;
+        slotById.put(todo.getId(), slot);
+        titleIndex.add(slot, todo.getTitle());
+
+        boolean completed = Boolean.TRUE.equals(todo.getCompleted());
+        if (completed)
+            completedSlots.set(slot);
+
+        if (todo.getUserId() != null) {
+            slotsByUser.computeIfAbsent(todo.getUserId(), u -> new BitSet()).set(slot);
+            int[] counts = countsByUser.computeIfAbsent(todo.getUserId(), u -> new int[2]);
+            counts[0]++;
+            if (completed) counts[1]++;
+        }
+    }
+
+    private void removeSlot(int slot) {
+        Todo todo = slots[slot];
+        if (todo == null) return;
+
+        boolean completed = completedSlots.get(slot);
+        Long userId = todo.getUserId();
+        if (userId != null) {
+            BitSet userSlots = slotsByUser.get(userId);
+            if (userSlots != null) {
+                userSlots.clear(slot);
+                if (userSlots.isEmpty()) slotsByUser.remove(userId);
+            }
+
+            int[] counts = countsByUser.get(userId);
+            if (counts != null) {
+                counts[0]--;
+                if (completed) counts[1]--;
+                if (counts[0] <= 0) countsByUser.remove(userId);
+            }
+        }
+
+        completedSlots.clear(slot);
+        titleIndex.remove(slot);
+        slotById.remove(todo.getId());
+        slots[slot] = null;
+        releaseSlot(slot);
+    }
+
+    private int allocateSlot() {
+        if (freeCount > 0)
+            return freeSlots[--freeCount];
+
+        if (highWater == slots.length)
+            slots = Arrays.copyOf(slots, slots.length * 2);
+        return highWater++;
+    }
+
+    private void releaseSlot(int slot) {
+        if (freeCount == freeSlots.length)
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        freeSlots[freeCount++] = slot;
+    }
+
+    private void clearLocked() {
+        Arrays.fill(slots, 0, highWater, null);
+        highWater = 0;
+        freeCount = 0;
+        slotById.clear();
+        slotsByUser.clear();
+        completedSlots.clear();
+        countsByUser.clear();
+        loadedUsers.clear();
+        titleIndex.clear();
+    }
+
+    private List<Todo> collect(BitSet matching) {
+        List<Todo> result = new ArrayList<>(matching.cardinality());
+        for (int slot = matching.nextSetBit(0); slot >= 0; slot = matching.nextSetBit(slot + 1)) {
+            result.add(slots[slot]);
+        }
+
+        // slots are reused, keep the API's id order
+        result.sort(Comparator.comparing(Todo::getId));
+        return result;
+    }
+}
@@ -0,0 +1,66 @@
+package com.example.client;
+
+import com.example.client.json.JsonByteReader;
+import com.example.client.json.TodoAdapter;
+import com.example.model.Todo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/*
+    Reads a JSON array of todos one element at a time, so the whole body never has to be in memory.
+    Parses the UTF-8 bytes directly, without decoding the body to chars first.
+    Must be closed, closing it also closes the underlying response stream
+ */
+public class TodoStreamReader implements Iterator<Todo>, Closeable {
+    private final JsonByteReader reader;
+    private boolean started = false;
+    private boolean finished = false;
+
+    public TodoStreamReader(InputStream source) {
+        this.reader = new JsonByteReader(source);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (finished) return false;
+
+        try {
+            if (!started) {
+                reader.beginArray();
+                started = true;
+            }
+
+            if (reader.hasNext())
+                return true;
+
+            reader.endArray();
+            finished = true;
+            return false;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read todos stream", e);
+        }
+    }
+
+    @Override
+    public Todo next() {
+        if (!hasNext())
+            throw new NoSuchElementException();
+
+        try {
+            return TodoAdapter.read(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read todos stream", e);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        reader.close();
+    }
+}
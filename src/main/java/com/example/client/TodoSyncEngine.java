@@ -0,0 +1,273 @@
+package com.example.client;
+
+import com.example.model.ApiException;
+import com.example.model.Todo;
+import com.example.model.TodoDelta;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Incremental refresh of users' todo lists. Every sync reloads the list and compares it with the
+    last synced one: an identical list (a 304 hands back the same instance) or an equal fingerprint
+    ends there, otherwise only the added, updated and removed todos go to the cache indexes and the
+    listeners, and the user's version goes up. Unchanged todos keep their previous instances, so
+    whoever holds them (a table model, a search index) doesn't have to look at them again
+ */
+public class TodoSyncEngine implements AutoCloseable {
+    private final CacheLoader loader;
+    private final CacheManager cacheManager;
+    private final List<TodoChangeListener> listeners = new CopyOnWriteArrayList<>();
+
+    private final Map<Long, UserState> states = new ConcurrentHashMap<>();
+    // one sync per user at a time, so deltas are computed against the latest state
+    private final Map<Long, Object> userLocks = new ConcurrentHashMap<>();
+    private volatile ScheduledExecutorService scheduler;
+
+    private final LongAdder syncCount = new LongAdder();
+    private final LongAdder unchangedCount = new LongAdder();
+    private final LongAdder changedTodoCount = new LongAdder();
+    private final LongAdder failureCount = new LongAdder();
+
+    // the last synced list of a user and the loaded one it was made of, never changed once published
+    private record UserState(List<Todo> todos, List<Todo> loaded, long fingerprint, long version) {}
+
+    public TodoSyncEngine(CacheLoader loader, CacheManager cacheManager) {
+        if (loader == null || cacheManager == null)
+            throw new IllegalArgumentException("Loader and cache manager cannot be null");
+
+        this.loader = loader;
+        this.cacheManager = cacheManager;
+    }
+
+    // syncs through the client's validators into its cache, changes also go to the client's event bus
+    public TodoSyncEngine(JsonPlaceholderClient client) {
+        this(new CacheLoader() {
+            @Override
+            public List<Todo> loadAllTodos() throws ApiException {
+                return client.loadAllTodos();
+            }
+
+            @Override
+            public List<Todo> loadUserTodos(Long userId) throws ApiException {
+                return client.loadUserTodos(userId);
+            }
+        }, client.getCacheManager());
+        // the field, not addListener(): a subclass isn't initialized yet
+        listeners.add((userId, version, delta) -> client.getEvents().publish(delta));
+    }
+
+    public void addListener(TodoChangeListener listener) {
+        if (listener != null) listeners.add(listener);
+    }
+
+    public void removeListener(TodoChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    // reloads the user's todos, the first sync of a user reports all of them as added
+    public TodoDelta sync(Long userId) throws ApiException {
+        if (userId == null || userId <= 0)
+            throw new IllegalArgumentException("Invalid user ID: " + userId);
+
+        synchronized (userLocks.computeIfAbsent(userId, id -> new Object())) {
+            List<Todo> loaded = loader.loadUserTodos(userId);
+            syncCount.increment();
+
+            UserState previous = states.get(userId);
+            List<Todo> previousTodos = previous != null ? previous.todos() : List.of();
+            boolean sameList = previous != null && loaded == previous.loaded();
+            long fingerprint = sameList ? previous.fingerprint() : fingerprint(loaded);
+
+            // the fingerprint only rules changes in, equal ones are confirmed todo by todo
+            if (previous != null && (sameList || fingerprint == previous.fingerprint()
+                    && sameValues(previousTodos, loaded))) {
+                // nothing changed, the cached list only gets younger
+                unchangedCount.increment();
+                cacheManager.applyDelta(userId, previousTodos, TodoDelta.EMPTY);
+                return TodoDelta.EMPTY;
+            }
+
+            List<Todo> merged = new ArrayList<>(loaded.size());
+            TodoDelta delta = diff(previousTodos, loaded, merged);
+            // shared with the cache and the listeners from now on, frozen so the cache keeps these
+            // instances instead of copying them on every sync
+            for (Todo todo : merged) {
+                todo.freeze();
+            }
+            List<Todo> todos = List.copyOf(merged);
+            long version = previous != null ? previous.version() + (delta.isEmpty() ? 0 : 1) : 1;
+            states.put(userId, new UserState(todos, loaded, fingerprint, version));
+
+            if (previous != null) {
+                cacheManager.applyDelta(userId, todos, delta);
+            } else {
+                // nothing to diff against yet: the user's entries are replaced, todos cached before
+                // (e.g. through getUserTodos) that the server no longer has are dropped
+                List<Long> stale = staleIds(userId, todos);
+                cacheManager.cacheUserTodos(userId, todos);
+                if (!stale.isEmpty())
+                    cacheManager.removeFromCache(stale);
+            }
+            if (delta.isEmpty()) {
+                unchangedCount.increment();
+                return delta;
+            }
+
+            changedTodoCount.add(delta.size());
+            for (TodoChangeListener listener : listeners) {
+                listener.onTodosChanged(userId, version, delta);
+            }
+            return delta;
+        }
+    }
+
+    // syncs every user synced so far every `interval`, failures are counted and retried next time
+    public synchronized void start(Duration interval) {
+        if (interval == null || interval.isNegative() || interval.isZero())
+            throw new IllegalArgumentException("Interval must be positive: " + interval);
+        if (scheduler != null)
+            throw new IllegalStateException("Sync is already running");
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("todo-sync").daemon().factory());
+        long millis = interval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::syncAll, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+            scheduler = null;
+        }
+    }
+
+    // 0 for a user that was never synced
+    public long getVersion(Long userId) {
+        UserState state = states.get(userId);
+        return state != null ? state.version() : 0;
+    }
+
+    public long getFingerprint(Long userId) {
+        UserState state = states.get(userId);
+        return state != null ? state.fingerprint() : 0;
+    }
+
+    // the last synced list, empty if the user was never synced
+    public List<Todo> getTodos(Long userId) {
+        UserState state = states.get(userId);
+        return state != null ? state.todos() : List.of();
+    }
+
+    public long getSyncCount() { return syncCount.sum(); }
+    public long getUnchangedCount() { return unchangedCount.sum(); }
+    public long getChangedTodoCount() { return changedTodoCount.sum(); }
+    public long getFailureCount() { return failureCount.sum(); }
+
+    @Override
+    public String toString() {
+        return String.format("TodoSync{users=%d, syncs=%d, unchanged=%d, changedTodos=%d, failures=%d}",
+                states.size(), getSyncCount(), getUnchangedCount(), getChangedTodoCount(), getFailureCount());
+    }
+
+    // helpers
+    private void syncAll() {
+        for (Long userId : states.keySet()) {
+            try {
+                sync(userId);
+            } catch (ApiException | RuntimeException e) {
+                failureCount.increment();
+                System.err.println("Failed to sync todos of user " + userId + ": " + e.getMessage());
+            }
+        }
+    }
+
+    // ids in the user's cached list that are not in `todos`
+    private List<Long> staleIds(Long userId, List<Todo> todos) {
+        List<Todo> cached = cacheManager.getCachedUserTodos(userId).orElse(List.of());
+        if (cached.isEmpty()) return List.of();
+
+        Set<Long> ids = new HashSet<>(Math.max(16, todos.size() * 2));
+        for (Todo todo : todos) {
+            ids.add(todo.getId());
+        }
+        List<Long> stale = new ArrayList<>();
+        for (Todo todo : cached) {
+            if (todo != null && todo.getId() != null && !ids.contains(todo.getId()))
+                stale.add(todo.getId());
+        }
+        return stale;
+    }
+
+    // same todos with the same values in the same order
+    private static boolean sameValues(List<Todo> previous, List<Todo> loaded) {
+        if (previous.size() != loaded.size()) return false;
+
+        for (int i = 0; i < loaded.size(); i++) {
+            Todo before = previous.get(i);
+            Todo todo = loaded.get(i);
+            if (before == todo) continue;
+            if (todo == null || before == null || !Objects.equals(before.getId(), todo.getId())
+                    || !TodoDelta.sameValues(before, todo))
+                return false;
+        }
+        return true;
+    }
+
+    // fills `merged` with the loaded list, unchanged todos replaced by their previous instances
+    private static TodoDelta diff(List<Todo> previous, List<Todo> loaded, List<Todo> merged) {
+        Map<Long, Todo> previousById = new HashMap<>(Math.max(16, previous.size() * 2));
+        for (Todo todo : previous) {
+            previousById.put(todo.getId(), todo);
+        }
+
+        List<Todo> added = new ArrayList<>();
+        List<Todo> updated = new ArrayList<>();
+        for (Todo todo : loaded) {
+            if (todo == null || todo.getId() == null) continue;
+
+            Todo before = previousById.remove(todo.getId());
+            if (before == null) {
+                added.add(todo);
+                merged.add(todo);
+            } else if (!TodoDelta.sameValues(before, todo)) {
+                updated.add(todo);
+                merged.add(todo);
+            } else {
+                merged.add(before);
+            }
+        }
+
+        return new TodoDelta(added, updated, new ArrayList<>(previousById.keySet()));
+    }
+
+    // order-independent hash of the todos' values
+    private static long fingerprint(List<Todo> todos) {
+        long fingerprint = 0;
+        for (Todo todo : todos) {
+            if (todo == null || todo.getId() == null) continue;
+
+            long h = todo.getId();
+            h = h * 31 + Objects.hashCode(todo.getUserId());
+            h = h * 31 + Objects.hashCode(todo.getTitle());
+            h = h * 31 + Objects.hashCode(todo.getCompleted());
+            // spread, so that sums of similar todos don't cancel out
+            h *= 0x9E3779B97F4A7C15L;
+            fingerprint += h ^ (h >>> 29);
+        }
+        return fingerprint;
+    }
+}
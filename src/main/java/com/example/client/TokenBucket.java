@@ -0,0 +1,61 @@
+package com.example.client;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/*
+    Token bucket rate limiter: refills `permitsPerSecond` tokens up to `burst`.
+    Callers reserve a token and are told how long to wait for it, so waiting callers are
+    served in reservation order without polling
+ */
+public class TokenBucket {
+    private final double permitsPerNano;
+    private final double burst;
+    private final LongSupplier clock;
+
+    // guarded by this, may go negative while tokens are reserved ahead
+    private double tokens;
+    private long refilledAt;
+
+    public TokenBucket(double permitsPerSecond, int burst) {
+        this(permitsPerSecond, burst, System::nanoTime);
+    }
+
+    TokenBucket(double permitsPerSecond, int burst, LongSupplier clock) {
+        if (permitsPerSecond <= 0)
+            throw new IllegalArgumentException("Rate must be positive: " + permitsPerSecond);
+        if (burst <= 0)
+            throw new IllegalArgumentException("Burst must be positive: " + burst);
+
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = burst;
+        this.clock = clock;
+        this.tokens = burst;
+        this.refilledAt = clock.getAsLong();
+    }
+
+    // nanos until the reserved token is available, -1 without reserving if that is over maxWaitNanos
+    public synchronized long reserve(long maxWaitNanos) {
+        refill();
+
+        long waitNanos = tokens >= 1 ? 0 : (long) Math.ceil((1 - tokens) / permitsPerNano);
+        if (waitNanos > maxWaitNanos)
+            return -1;
+
+        tokens -= 1;
+        return waitNanos;
+    }
+
+    public boolean tryAcquire() {
+        return reserve(0) == 0;
+    }
+
+    public double getPermitsPerSecond() { return permitsPerNano * TimeUnit.SECONDS.toNanos(1); }
+
+    // helpers, callers hold the lock
+    private void refill() {
+        long now = clock.getAsLong();
+        tokens = Math.min(burst, tokens + (now - refilledAt) * permitsPerNano);
+        refilledAt = now;
+    }
+}
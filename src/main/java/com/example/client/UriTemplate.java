@@ -0,0 +1,69 @@
+package com.example.client;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/*
+    Url of an endpoint with at most one number in it, e.g. "/todos/{}" or "/todos?userId={}".
+    The base url and the fixed parts are joined once; urls for values below `CACHE_SIZE` are parsed
+    once and reused, larger values are built in a single StringBuilder
+ */
+public final class UriTemplate {
+    public static final String PLACEHOLDER = "{}";
+    public static final int CACHE_SIZE = 1024;
+
+    private final String prefix;
+    private final String suffix;
+    private final URI fixed;
+    private final AtomicReferenceArray<URI> cache;
+
+    public UriTemplate(String baseUrl, String pathTemplate) {
+        int at = pathTemplate.indexOf(PLACEHOLDER);
+        if (at < 0) {
+            this.prefix = baseUrl + pathTemplate;
+            this.suffix = null;
+            this.fixed = URI.create(prefix);
+            this.cache = null;
+        } else {
+            this.prefix = baseUrl + pathTemplate.substring(0, at);
+            this.suffix = pathTemplate.substring(at + PLACEHOLDER.length());
+            this.fixed = null;
+            this.cache = new AtomicReferenceArray<>(CACHE_SIZE);
+        }
+    }
+
+    public URI expand() {
+        if (fixed == null)
+            throw new IllegalStateException("Template " + this + " needs a value");
+
+        return fixed;
+    }
+
+    public URI expand(long value) {
+        if (cache == null)
+            throw new IllegalStateException("Template " + this + " takes no value");
+        if (value < 0 || value >= CACHE_SIZE)
+            return build(value);
+
+        URI uri = cache.get((int) value);
+        if (uri == null) {
+            uri = build(value);
+            cache.set((int) value, uri);
+        }
+        return uri;
+    }
+
+    @Override
+    public String toString() {
+        return suffix == null ? prefix : prefix + PLACEHOLDER + suffix;
+    }
+
+    // helper
+    private URI build(long value) {
+        return URI.create(new StringBuilder(prefix.length() + 20 + suffix.length())
+                .append(prefix)
+                .append(value)
+                .append(suffix)
+                .toString());
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.client;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    ETag / Last-Modified validators of GET responses. Only the validators are kept, never the parsed
+    bodies: a caller revalidates a value it still holds (e.g. a cached list being reloaded) with
+    If-None-Match / If-Modified-Since and keeps using it on a 304, so nothing outlives the cache's
+    TTL and size limits here. The least recently used urls are dropped past `maxEntries`
+ */
+public class ValidatorStore {
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private final Map<String, Entry> entries;
+    private final LongAdder revalidationCount = new LongAdder();
+    private final LongAdder notModifiedCount = new LongAdder();
+
+    private static class Entry {
+        private final String etag;
+        private final String lastModified;
+
+        private Entry(String etag, String lastModified) {
+            this.etag = etag;
+            this.lastModified = lastModified;
+        }
+    }
+
+    public ValidatorStore() {
+        this(DEFAULT_MAX_ENTRIES);
+    }
+
+    public ValidatorStore(int maxEntries) {
+        if (maxEntries <= 0)
+            throw new IllegalArgumentException("Max entries must be positive: " + maxEntries);
+
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    // the request with validators of the last response for its url, or the request itself
+    public HttpRequest conditional(HttpRequest request) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(request.uri().toString());
+        }
+        if (entry == null) return request;
+
+        HttpRequest.Builder builder = HttpRequest.newBuilder(request, (name, value) -> true);
+        if (entry.etag != null)
+            builder.header("If-None-Match", entry.etag);
+        if (entry.lastModified != null)
+            builder.header("If-Modified-Since", entry.lastModified);
+
+        revalidationCount.increment();
+        return builder.build();
+    }
+
+    // remembers the validators of a 2xx response, if the server sent any
+    public void remember(HttpResponse<?> response) {
+        String url = response.request().uri().toString();
+        Optional<String> etag = response.headers().firstValue("ETag");
+        Optional<String> lastModified = response.headers().firstValue("Last-Modified");
+
+        synchronized (entries) {
+            if (etag.isEmpty() && lastModified.isEmpty())
+                entries.remove(url);
+            else
+                entries.put(url, new Entry(etag.orElse(null), lastModified.orElse(null)));
+        }
+    }
+
+    // true for a 304 response, the caller's value is still current
+    public boolean notModified(HttpResponse<?> response) {
+        if (response.statusCode() != 304) return false;
+
+        notModifiedCount.increment();
+        return true;
+    }
+
+    public void clear() {
+        synchronized (entries) {
+            entries.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    // conditional requests sent and how many of them came back 304
+    public long getRevalidationCount() { return revalidationCount.sum(); }
+    public long getNotModifiedCount() { return notModifiedCount.sum(); }
+
+    @Override
+    public String toString() {
+        return String.format("Validators{entries=%d, revalidations=%d, notModified=%d}",
+                size(), getRevalidationCount(), getNotModifiedCount());
+    }
+}
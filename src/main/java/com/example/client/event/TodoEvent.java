@@ -0,0 +1,19 @@
+package com.example.client.event;
+
+import com.example.client.CacheManager;
+import com.example.model.Todo;
+
+// what the client layer tells TodoEventBus subscribers, todos in events are shared with the caller or the cache, don't modify them
+public sealed interface TodoEvent {
+
+    record TodoCreated(Todo todo) implements TodoEvent {}
+
+    record TodoUpdated(Todo todo) implements TodoEvent {}
+
+    // also sent for todos that were gone on the server already
+    record TodoDeleted(Long id) implements TodoEvent {}
+
+    // the cache dropped an entry (expired, evicted or invalidated by a write): the user id for
+    // USER_TODOS, the todo id for TODO, null for ALL_TODOS; a null region means the whole cache
+    record CacheInvalidated(CacheManager.Region region, Long key) implements TodoEvent {}
+}
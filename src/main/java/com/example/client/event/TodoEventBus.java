@@ -0,0 +1,289 @@
+package com.example.client.event;
+
+import com.example.model.Todo;
+import com.example.model.TodoDelta;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/*
+    Publish/subscribe of todo events. Every subscription has its own ring buffer of `capacity` events
+    and a virtual thread delivering them in order, so a slow subscriber never delays the others or
+    the publisher beyond its back-pressure policy. Publishing does not allocate: subscribers are kept
+    in an array and buffers are preallocated; publishers should check hasSubscribers() before
+    creating an event. A subscriber that sees getDroppedCount() grow has missed events and should
+    re-query instead of applying them incrementally
+ */
+public class TodoEventBus {
+    public static final int DEFAULT_CAPACITY = 1024;
+    // longest a BLOCK publisher waits, the event is dropped after that
+    public static final Duration MAX_BLOCK = Duration.ofMillis(100);
+
+    // what publishing does when a subscriber's buffer is full
+    public enum BackPressure { DROP_NEWEST, DROP_OLDEST, BLOCK }
+
+    // called on the subscription's delivery thread
+    @FunctionalInterface
+    public interface Listener {
+        void onEvent(TodoEvent event);
+    }
+
+    private static final AtomicInteger SUBSCRIPTION_IDS = new AtomicInteger();
+
+    // replaced as a whole, publish() iterates it without locking or allocating
+    private volatile Subscription[] subscriptions = new Subscription[0];
+
+    public Subscription subscribe(Listener listener) {
+        return subscribe(listener, DEFAULT_CAPACITY, BackPressure.BLOCK);
+    }
+
+    public synchronized Subscription subscribe(Listener listener, int capacity, BackPressure backPressure) {
+        if (listener == null || backPressure == null)
+            throw new IllegalArgumentException("Listener and back-pressure policy cannot be null");
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Capacity must be positive: " + capacity);
+
+        Subscription subscription = new Subscription(listener, capacity, backPressure);
+        Subscription[] current = subscriptions;
+        Subscription[] updated = Arrays.copyOf(current, current.length + 1);
+        updated[current.length] = subscription;
+        subscriptions = updated;
+        return subscription;
+    }
+
+    public boolean hasSubscribers() {
+        return subscriptions.length > 0;
+    }
+
+    public int getSubscriberCount() {
+        return subscriptions.length;
+    }
+
+    public void publish(TodoEvent event) {
+        publish(event, true);
+    }
+
+    // never waits, full BLOCK buffers drop the event like DROP_NEWEST ones; for publishers holding locks
+    public void tryPublish(TodoEvent event) {
+        publish(event, false);
+    }
+
+    // a synced delta as single events
+    public void publish(TodoDelta delta) {
+        if (delta == null || !hasSubscribers()) return;
+
+        for (Todo todo : delta.getAdded()) {
+            publish(new TodoEvent.TodoCreated(todo));
+        }
+        for (Todo todo : delta.getUpdated()) {
+            publish(new TodoEvent.TodoUpdated(todo));
+        }
+        for (Long id : delta.getRemovedIds()) {
+            publish(new TodoEvent.TodoDeleted(id));
+        }
+    }
+
+    // closes every subscription, events still buffered are dropped
+    public synchronized void close() {
+        for (Subscription subscription : subscriptions) {
+            subscription.stop();
+        }
+        subscriptions = new Subscription[0];
+    }
+
+    private void publish(TodoEvent event, boolean mayBlock) {
+        if (event == null) return;
+
+        for (Subscription subscription : subscriptions) {
+            subscription.offer(event, mayBlock);
+        }
+    }
+
+    private synchronized void remove(Subscription subscription) {
+        Subscription[] current = subscriptions;
+        for (int i = 0; i < current.length; i++) {
+            if (current[i] != subscription) continue;
+
+            Subscription[] updated = new Subscription[current.length - 1];
+            System.arraycopy(current, 0, updated, 0, i);
+            System.arraycopy(current, i + 1, updated, i, current.length - i - 1);
+            subscriptions = updated;
+            return;
+        }
+    }
+
+    public class Subscription implements AutoCloseable {
+        private final Listener listener;
+        private final BackPressure backPressure;
+        private final Thread worker;
+
+        // ring buffer, guarded by lock
+        private final TodoEvent[] buffer;
+        private final TodoEvent[] batch;
+        private long head = 0;
+        private long tail = 0;
+        private boolean stopped = false;
+        private long deliveredCount = 0;
+        private long droppedCount = 0;
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Condition notFull = lock.newCondition();
+
+        private Subscription(Listener listener, int capacity, BackPressure backPressure) {
+            this.listener = listener;
+            this.backPressure = backPressure;
+            this.buffer = new TodoEvent[capacity];
+            this.batch = new TodoEvent[capacity];
+            this.worker = Thread.ofVirtual()
+                    .name("todo-events-" + SUBSCRIPTION_IDS.incrementAndGet())
+                    .start(this::deliver);
+        }
+
+        // events waiting for delivery
+        public int getQueued() {
+            lock.lock();
+            try {
+                return (int) (tail - head);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public long getDeliveredCount() {
+            lock.lock();
+            try {
+                return deliveredCount;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        public long getDroppedCount() {
+            lock.lock();
+            try {
+                return droppedCount;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // stops delivery, events still buffered are dropped
+        @Override
+        public void close() {
+            remove(this);
+            stop();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("Subscription{policy=%s, queued=%d, delivered=%d, dropped=%d}",
+                    backPressure, getQueued(), getDeliveredCount(), getDroppedCount());
+        }
+
+        private void offer(TodoEvent event, boolean mayBlock) {
+            lock.lock();
+            try {
+                if (stopped) return;
+
+                if (tail - head == buffer.length && !makeRoom(mayBlock)) {
+                    droppedCount++;
+                    return;
+                }
+
+                buffer[(int) (tail++ % buffer.length)] = event;
+                notEmpty.signal();
+            } catch (InterruptedException e) {
+                droppedCount++;
+                Thread.currentThread().interrupt();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // true once there is space for the new event, the buffer is full and the lock held
+        private boolean makeRoom(boolean mayBlock) throws InterruptedException {
+            switch (backPressure) {
+                case DROP_NEWEST -> {
+                    return false;
+                }
+                case DROP_OLDEST -> {
+                    buffer[(int) (head++ % buffer.length)] = null;
+                    droppedCount++;
+                    return true;
+                }
+                default -> {
+                    if (!mayBlock) return false;
+
+                    long waitNanos = MAX_BLOCK.toNanos();
+                    while (tail - head == buffer.length && !stopped) {
+                        if (waitNanos <= 0) return false;
+                        waitNanos = notFull.awaitNanos(waitNanos);
+                    }
+                    return !stopped;
+                }
+            }
+        }
+
+        private void deliver() {
+            while (true) {
+                int count;
+                lock.lock();
+                try {
+                    while (tail == head && !stopped) {
+                        notEmpty.awaitUninterruptibly();
+                    }
+                    if (stopped) return;
+
+                    // take everything buffered, listeners run without the lock
+                    count = (int) (tail - head);
+                    for (int i = 0; i < count; i++) {
+                        int slot = (int) (head++ % buffer.length);
+                        batch[i] = buffer[slot];
+                        buffer[slot] = null;
+                    }
+                    notFull.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+
+                for (int i = 0; i < count; i++) {
+                    TodoEvent event = batch[i];
+                    batch[i] = null;
+                    try {
+                        listener.onEvent(event);
+                    } catch (RuntimeException e) {
+                        // a failing listener still gets the next events
+                        System.err.println("Todo event listener failed: " + e.getMessage());
+                    }
+                }
+
+                lock.lock();
+                try {
+                    deliveredCount += count;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        private void stop() {
+            lock.lock();
+            try {
+                stopped = true;
+                Arrays.fill(buffer, null);
+                head = tail;
+                notEmpty.signalAll();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // delivery thread, for tests and shutdown hooks
+        Thread getWorker() { return worker; }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.client.impl;
+
+import com.example.client.CacheManager.Region;
+import com.example.client.CacheManager.RegionStats;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Always-on cache counters. LongAdder keeps hot-path increments contention-free,
+    the sums are only folded when a snapshot is taken
+ */
+public class CacheMetrics {
+    private final LongAdder[] hits = newAdders();
+    private final LongAdder[] misses = newAdders();
+    private final LatencyHistogram[] loads = new LatencyHistogram[Region.values().length];
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+
+    public CacheMetrics() {
+        for (int i = 0; i < loads.length; i++) {
+            loads[i] = new LatencyHistogram();
+        }
+    }
+
+    public void recordHit(Region region) { hits[region.ordinal()].increment(); }
+
+    public void recordMiss(Region region) { misses[region.ordinal()].increment(); }
+
+    public void recordLoad(Region region, long nanos) { loads[region.ordinal()].record(nanos); }
+
+    public void recordEviction() { evictions.increment(); }
+
+    public void recordExpiration() { expirations.increment(); }
+
+    public void recordRefresh() { refreshes.increment(); }
+
+    public void recordRefreshFailure() { refreshFailures.increment(); }
+
+    public long getEvictionCount() { return evictions.sum(); }
+
+    public long getRefreshCount() { return refreshes.sum(); }
+
+    public long getRefreshFailureCount() { return refreshFailures.sum(); }
+
+    public long getExpirationCount() { return expirations.sum(); }
+
+    public Map<Region, RegionStats> snapshot() {
+        Map<Region, RegionStats> regions = new EnumMap<>(Region.class);
+
+        for (Region region : Region.values()) {
+            int i = region.ordinal();
+            LatencyHistogram load = loads[i];
+            regions.put(region, new RegionStats(hits[i].sum(), misses[i].sum(), load.getCount(),
+                    load.getPercentileMicros(50), load.getPercentileMicros(95), load.getPercentileMicros(99)));
+        }
+
+        return regions;
+    }
+
+    public void reset() {
+        for (int i = 0; i < loads.length; i++) {
+            hits[i].reset();
+            misses[i].reset();
+            loads[i].reset();
+        }
+        evictions.reset();
+        expirations.reset();
+        refreshes.reset();
+        refreshFailures.reset();
+    }
+
+    // helpers
+    private static LongAdder[] newAdders() {
+        LongAdder[] adders = new LongAdder[Region.values().length];
+        for (int i = 0; i < adders.length; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
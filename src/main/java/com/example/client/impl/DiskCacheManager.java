@@ -0,0 +1,556 @@
+package com.example.client.impl;
+
+import com.example.client.CacheManager;
+import com.example.model.Todo;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/*
+    Persistent cache that survives restarts. State lives in two files in the given directory:
+    - todos.snapshot: compact binary image, memory-mapped read-only; on startup only the record
+      offsets are indexed, todos are decoded when they are first read
+    - todos.wal: write-ahead append log of every change since the snapshot, replayed on startup
+    The log is folded into a new snapshot by compact(), which also runs on its own once the
+    log outgrows the snapshot. Can be used alone or as the L2 of a TieredCacheManager
+    Both files are mapped and addressed with int offsets, so each is limited to 2 GB: a compaction
+    that would write a bigger snapshot fails and leaves the old one in place
+ */
+public class DiskCacheManager implements CacheManager, Closeable {
+    private static final String SNAPSHOT_FILE = "todos.snapshot";
+    private static final String WAL_FILE = "todos.wal";
+    private static final int MAGIC = 0x544F444F; // "TODO"
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 8;
+    private static final long MIN_COMPACTION_BYTES = 1024 * 1024;
+    // a mapped buffer and the offsets into it are ints
+    private static final long MAX_FILE_SIZE = Integer.MAX_VALUE;
+    private static final long NULL_USER_ID = Long.MIN_VALUE;
+
+    // record types, shared by the snapshot and the log
+    private static final byte TODO_PUT = 1;
+    private static final byte TODO_REMOVE = 2;
+    private static final byte USER_LIST = 3;
+    private static final byte USER_CLEAR = 4;
+    private static final byte ALL_LIST = 5;
+    private static final byte CLEAR_ALL = 6;
+
+    // persisted lists outlive restarts, so they get a longer lifetime than the in-memory cache
+    private static final long DEFAULT_TTL = TimeUnit.HOURS.toMillis(1);
+    private long ttl = DEFAULT_TTL;
+
+    private final Path snapshotPath;
+    private final Path walPath;
+    private boolean loaded = false;
+    private boolean closed = false;
+
+    private MappedByteBuffer snapshot;
+    private FileChannel wal;
+    private long walSize = 0;
+
+    // todos still sitting in the snapshot -> offset of their record payload
+    private final Map<Long, Integer> snapshotOffsets = new HashMap<>();
+    // todos written (or already decoded) since the snapshot was mapped
+    private final Map<Long, Todo> liveTodos = new HashMap<>();
+    private final Map<Long, IdList> userLists = new HashMap<>();
+    private IdList allTodosList = null;
+
+    private final CacheMetrics metrics = new CacheMetrics();
+
+    // ids of a cached list and the time it was cached, todos are resolved by id on read
+    private record IdList(long timestamp, long[] ids) {}
+
+    public DiskCacheManager(Path directory) {
+        if (directory == null)
+            throw new IllegalArgumentException("Cache directory cannot be null");
+
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to create cache directory " + directory, e);
+        }
+
+        this.snapshotPath = directory.resolve(SNAPSHOT_FILE);
+        this.walPath = directory.resolve(WAL_FILE);
+    }
+
+    @Override
+    public synchronized void cacheUserTodos(Long userId, List<Todo> todos) {
+        if (userId == null || todos == null) return;
+        ensureLoaded();
+
+        for (Todo t : todos) {
+            putTodo(t);
+        }
+
+        IdList list = new IdList(System.currentTimeMillis(), idsOf(todos));
+        userLists.put(userId, list);
+        append(encodeList(USER_LIST, userId, list));
+    }
+
+    @Override
+    public synchronized Optional<List<Todo>> getCachedUserTodos(Long userId) {
+        if (userId == null) return Optional.empty();
+        ensureLoaded();
+
+        IdList list = userLists.get(userId);
+        if (list != null && isExpired(list.timestamp())) {
+            clearUserCache(userId);
+            metrics.recordExpiration();
+            list = null;
+        }
+
+        if (list == null) {
+            metrics.recordMiss(Region.USER_TODOS);
+            return Optional.empty();
+        }
+
+        metrics.recordHit(Region.USER_TODOS);
+        return Optional.of(resolve(list));
+    }
+
+    @Override
+    public synchronized void cacheAllTodos(List<Todo> todos) {
+        if (todos == null) return;
+        ensureLoaded();
+
+        for (Todo t : todos) {
+            putTodo(t);
+        }
+
+        allTodosList = new IdList(System.currentTimeMillis(), idsOf(todos));
+        append(encodeList(ALL_LIST, 0, allTodosList));
+    }
+
+    @Override
+    public synchronized Optional<List<Todo>> getCachedAllTodos() {
+        ensureLoaded();
+
+        if (allTodosList != null && isExpired(allTodosList.timestamp())) {
+            allTodosList = null;
+            // a list with timestamp 0 marks the slot as empty
+            append(encodeList(ALL_LIST, 0, new IdList(0, new long[0])));
+            metrics.recordExpiration();
+        }
+
+        if (allTodosList == null) {
+            metrics.recordMiss(Region.ALL_TODOS);
+            return Optional.empty();
+        }
+
+        metrics.recordHit(Region.ALL_TODOS);
+        return Optional.of(resolve(allTodosList));
+    }
+
+    @Override
+    public synchronized void cacheTodo(Todo todo) {
+        if (todo == null || todo.getId() == null) return;
+        ensureLoaded();
+
+        putTodo(todo);
+    }
+
+    @Override
+    public synchronized Optional<Todo> getCachedTodo(Long id) {
+        if (id == null) return Optional.empty();
+        ensureLoaded();
+
+        Todo todo = lookup(id);
+        if (todo == null) {
+            metrics.recordMiss(Region.TODO);
+            return Optional.empty();
+        }
+
+        metrics.recordHit(Region.TODO);
+        return Optional.of(todo);
+    }
+
+    @Override
+    public synchronized void removeFromCache(Long id) {
+        if (id == null) return;
+        ensureLoaded();
+
+        // lists keep the id, it is skipped when the list is resolved
+        liveTodos.remove(id);
+        snapshotOffsets.remove(id);
+        append(encodeId(TODO_REMOVE, id));
+    }
+
+    @Override
+    public synchronized void clearCache() {
+        ensureLoaded();
+
+        liveTodos.clear();
+        snapshotOffsets.clear();
+        userLists.clear();
+        allTodosList = null;
+        append(encodeId(CLEAR_ALL, 0));
+    }
+
+    @Override
+    public synchronized void clearUserCache(Long userId) {
+        if (userId == null) return;
+        ensureLoaded();
+
+        if (userLists.remove(userId) != null)
+            append(encodeId(USER_CLEAR, userId));
+    }
+
+    @Override
+    public synchronized CacheStats getCacheStats() {
+        ensureLoaded();
+
+        long sizeBytes = (snapshot != null ? snapshot.capacity() : 0) + walSize;
+        return new CacheStats(userLists.size(), snapshotOffsets.size() + liveTodos.size(), sizeBytes,
+                metrics.getEvictionCount(), metrics.getExpirationCount(), metrics.snapshot());
+    }
+
+    @Override
+    public void recordLoadTime(Region region, long nanos) {
+        if (region != null)
+            metrics.recordLoad(region, nanos);
+    }
+
+    // folds the log into a fresh snapshot and truncates the log
+    public synchronized void compact() {
+        ensureLoaded();
+
+        Path tmp = snapshotPath.resolveSibling(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putInt(VERSION).flip();
+            writeFully(out, header);
+
+            for (Integer offset : snapshotOffsets.values()) {
+                writeFully(out, encodeTodo(decodeTodo(snapshot, offset)));
+            }
+            for (Todo todo : liveTodos.values()) {
+                writeFully(out, encodeTodo(todo));
+            }
+            for (Map.Entry<Long, IdList> entry : userLists.entrySet()) {
+                writeFully(out, encodeList(USER_LIST, entry.getKey(), entry.getValue()));
+            }
+            if (allTodosList != null)
+                writeFully(out, encodeList(ALL_LIST, 0, allTodosList));
+
+            if (out.size() > MAX_FILE_SIZE)
+                throw new IOException("Cache snapshot would exceed " + MAX_FILE_SIZE + " bytes");
+            out.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write cache snapshot", e);
+        }
+
+        try {
+            Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            wal.truncate(0);
+            wal.force(true);
+            walSize = 0;
+
+            // everything now lives in the new snapshot, drop decoded copies and re-index it
+            liveTodos.clear();
+            snapshotOffsets.clear();
+            userLists.clear();
+            allTodosList = null;
+            mapSnapshot();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to replace cache snapshot", e);
+        }
+    }
+
+    // forces the log to the storage device
+    public synchronized void sync() {
+        if (wal == null) return;
+
+        try {
+            wal.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to sync cache log", e);
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        if (wal != null) {
+            wal.force(false);
+            wal.close();
+            wal = null;
+        }
+        // the mapping itself is released by the GC
+        snapshot = null;
+    }
+
+    public void setTtl(long ttlMillis) { this.ttl = ttlMillis; }
+
+    public long getTtl() { return ttl; }
+
+    // helpers
+    private void ensureLoaded() {
+        if (closed)
+            throw new IllegalStateException("Disk cache is closed");
+        if (loaded) return;
+
+        try {
+            mapSnapshot();
+
+            wal = FileChannel.open(walPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE);
+            replayLog();
+            loaded = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open disk cache", e);
+        }
+    }
+
+    private void mapSnapshot() throws IOException {
+        snapshot = null;
+        if (!Files.exists(snapshotPath) || Files.size(snapshotPath) < HEADER_SIZE) return;
+
+        try (FileChannel channel = FileChannel.open(snapshotPath, StandardOpenOption.READ)) {
+            if (channel.size() > MAX_FILE_SIZE)
+                throw new IOException("Cache snapshot " + snapshotPath + " exceeds " + MAX_FILE_SIZE + " bytes");
+            // the mapping stays valid after the channel is closed
+            snapshot = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+
+        if (snapshot.getInt(0) != MAGIC || snapshot.getInt(4) != VERSION) {
+            snapshot = null;
+            return;
+        }
+
+        // index only, todo payloads are decoded on first read
+        int position = HEADER_SIZE;
+        while (position + 4 <= snapshot.limit()) {
+            int length = snapshot.getInt(position);
+            int payload = position + 4;
+            if (length <= 0 || payload + length + 4 > snapshot.limit()) break;
+
+            if (snapshot.get(payload) == TODO_PUT)
+                snapshotOffsets.put(snapshot.getLong(payload + 1), payload);
+            else
+                apply(snapshot, payload);
+
+            position = payload + length + 4;
+        }
+    }
+
+    private void replayLog() throws IOException {
+        long size = wal.size();
+        if (size == 0) return;
+        if (size > MAX_FILE_SIZE)
+            throw new IOException("Cache log " + walPath + " exceeds " + MAX_FILE_SIZE + " bytes");
+
+        ByteBuffer log = wal.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        int position = 0;
+        while (position + 4 <= log.limit()) {
+            int length = log.getInt(position);
+            int payload = position + 4;
+            if (length <= 0 || payload + length + 4 > log.limit()) break;
+
+            // a torn or corrupted tail ends the replay
+            if (log.getInt(payload + length) != crcOf(log, payload, length)) break;
+
+            apply(log, payload);
+            position = payload + length + 4;
+        }
+
+        if (position < size)
+            wal.truncate(position);
+        walSize = position;
+        wal.position(walSize);
+    }
+
+    private void apply(ByteBuffer buffer, int payload) {
+        byte type = buffer.get(payload);
+        switch (type) {
+            case TODO_PUT -> {
+                Todo todo = decodeTodo(buffer, payload);
+                snapshotOffsets.remove(todo.getId());
+                liveTodos.put(todo.getId(), todo);
+            }
+            case TODO_REMOVE -> {
+                long id = buffer.getLong(payload + 1);
+                snapshotOffsets.remove(id);
+                liveTodos.remove(id);
+            }
+            case USER_LIST -> userLists.put(buffer.getLong(payload + 1), decodeList(buffer, payload));
+            case USER_CLEAR -> userLists.remove(buffer.getLong(payload + 1));
+            case ALL_LIST -> {
+                IdList list = decodeList(buffer, payload);
+                allTodosList = list.timestamp() > 0 ? list : null;
+            }
+            case CLEAR_ALL -> {
+                snapshotOffsets.clear();
+                liveTodos.clear();
+                userLists.clear();
+                allTodosList = null;
+            }
+            default -> { } // unknown record from a newer version, skip it
+        }
+    }
+
+    private Todo lookup(Long id) {
+        Todo todo = liveTodos.get(id);
+        if (todo != null) return todo;
+
+        Integer offset = snapshotOffsets.get(id);
+        if (offset == null || snapshot == null) return null;
+
+        // decode once, keep the object for later reads
+        todo = decodeTodo(snapshot, offset);
+        snapshotOffsets.remove(id);
+        liveTodos.put(id, todo);
+        return todo;
+    }
+
+    private List<Todo> resolve(IdList list) {
+        List<Todo> todos = new ArrayList<>(list.ids().length);
+        for (long id : list.ids()) {
+            Todo todo = lookup(id);
+            if (todo != null)
+                todos.add(todo);
+        }
+        return todos;
+    }
+
+    private void putTodo(Todo todo) {
+        if (todo == null || todo.getId() == null) return;
+
+        // handed out to every reader, so a frozen copy: the caller keeps its own todo editable
+        snapshotOffsets.remove(todo.getId());
+        liveTodos.put(todo.getId(), todo.isFrozen() ? todo : todo.copy().freeze());
+        append(encodeTodo(todo));
+    }
+
+    private void append(ByteBuffer record) {
+        try {
+            walSize += writeFully(wal, record);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append to cache log", e);
+        }
+
+        long snapshotSize = snapshot != null ? snapshot.capacity() : 0;
+        if (walSize > Math.max(MIN_COMPACTION_BYTES, snapshotSize))
+            compact();
+    }
+
+    private boolean isExpired(long timestamp) {
+        return (System.currentTimeMillis() - timestamp) > ttl;
+    }
+
+    private static long writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        long written = 0;
+        while (buffer.hasRemaining()) {
+            written += channel.write(buffer);
+        }
+        return written;
+    }
+
+    private static long[] idsOf(List<Todo> todos) {
+        return todos.stream()
+                .filter(t -> t != null && t.getId() != null)
+                .mapToLong(Todo::getId)
+                .toArray();
+    }
+
+    // binary format: [int length][payload][int crc32 of payload], payload starts with the record type
+
+    private static ByteBuffer frame(ByteBuffer payload) {
+        payload.flip();
+        int length = payload.remaining();
+
+        ByteBuffer record = ByteBuffer.allocate(length + 8);
+        record.putInt(length);
+        record.put(payload.duplicate());
+        record.putInt(crcOf(payload, 0, length));
+        return record.flip();
+    }
+
+    private static ByteBuffer encodeTodo(Todo todo) {
+        byte[] title = todo.getTitle() != null ? todo.getTitle().getBytes(StandardCharsets.UTF_8) : null;
+
+        ByteBuffer payload = ByteBuffer.allocate(1 + 8 + 8 + 1 + 4 + (title != null ? title.length : 0));
+        payload.put(TODO_PUT);
+        payload.putLong(todo.getId());
+        payload.putLong(todo.getUserId() != null ? todo.getUserId() : NULL_USER_ID);
+        payload.put(todo.getCompleted() == null ? (byte) 2 : (byte) (todo.getCompleted() ? 1 : 0));
+        payload.putInt(title != null ? title.length : -1);
+        if (title != null)
+            payload.put(title);
+
+        return frame(payload);
+    }
+
+    private static Todo decodeTodo(ByteBuffer buffer, int payload) {
+        long id = buffer.getLong(payload + 1);
+        long userId = buffer.getLong(payload + 9);
+        byte completed = buffer.get(payload + 17);
+        int titleLength = buffer.getInt(payload + 18);
+
+        String title = null;
+        if (titleLength >= 0) {
+            byte[] bytes = new byte[titleLength];
+            buffer.get(payload + 22, bytes);
+            title = new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        return new Todo(id,
+                userId == NULL_USER_ID ? null : userId,
+                title,
+                completed == 2 ? null : completed == 1).freeze();
+    }
+
+    private static ByteBuffer encodeList(byte type, long key, IdList list) {
+        ByteBuffer payload = ByteBuffer.allocate(1 + 8 + 8 + 4 + list.ids().length * 8);
+        payload.put(type);
+        payload.putLong(key);
+        payload.putLong(list.timestamp());
+        payload.putInt(list.ids().length);
+        for (long id : list.ids()) {
+            payload.putLong(id);
+        }
+
+        return frame(payload);
+    }
+
+    private static IdList decodeList(ByteBuffer buffer, int payload) {
+        long timestamp = buffer.getLong(payload + 9);
+        int count = buffer.getInt(payload + 17);
+
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = buffer.getLong(payload + 21 + i * 8);
+        }
+
+        return new IdList(timestamp, ids);
+    }
+
+    private static ByteBuffer encodeId(byte type, long id) {
+        ByteBuffer payload = ByteBuffer.allocate(1 + 8);
+        payload.put(type);
+        payload.putLong(id);
+        return frame(payload);
+    }
+
+    private static int crcOf(ByteBuffer buffer, int offset, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(offset, length));
+        return (int) crc.getValue();
+    }
+}
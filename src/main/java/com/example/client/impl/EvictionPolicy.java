@@ -0,0 +1,30 @@
+package com.example.client.impl;
+
+/*
+    Decides which key leaves a bounded cache when it is over its limits.
+    Implementations are not thread-safe, the cache calls them under its own lock
+ */
+public interface EvictionPolicy<K> {
+    void recordInsert(K key);
+    void recordAccess(K key);
+    void recordRemoval(K key);
+
+    // key that should be evicted next, or null if the policy tracks nothing
+    K selectVictim();
+
+    int size();
+    void clear();
+
+    static <K> EvictionPolicy<K> lru() {
+        return new LruEvictionPolicy<>();
+    }
+
+    static <K> EvictionPolicy<K> lfu() {
+        return new LfuEvictionPolicy<>();
+    }
+
+    // expectedSize sizes the frequency sketch, use the cache's max entry count
+    static <K> EvictionPolicy<K> windowTinyLfu(int expectedSize) {
+        return new WindowTinyLfuEvictionPolicy<>(expectedSize);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.client.impl;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Lock-free log-linear histogram of durations in microseconds.
+    Every power of two is split into 4 buckets, so percentiles are accurate to ~25%,
+    which is enough to tell a 2 ms load from a 200 ms one at the cost of one atomic add
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKETS = 4;
+    private static final int BUCKET_COUNT = SUB_BUCKETS + 62 * SUB_BUCKETS;
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalMicros = new LongAdder();
+
+    public void record(long nanos) {
+        long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+
+        buckets.incrementAndGet(bucketOf(micros));
+        count.increment();
+        totalMicros.add(micros);
+    }
+
+    public long getCount() { return count.sum(); }
+
+    public long getMeanMicros() {
+        long n = count.sum();
+        return n > 0 ? totalMicros.sum() / n : 0;
+    }
+
+    // upper bound of the bucket holding the given percentile (0..100), 0 if nothing was recorded
+    public long getPercentileMicros(double percentile) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = buckets.get(i);
+            total += snapshot[i];
+        }
+        if (total == 0) return 0;
+
+        long rank = (long) Math.ceil(total * Math.min(100.0, Math.max(0.0, percentile)) / 100.0);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= Math.max(1, rank))
+                return upperBoundOf(i);
+        }
+
+        return upperBoundOf(BUCKET_COUNT - 1);
+    }
+
+    public void reset() {
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        count.reset();
+        totalMicros.reset();
+    }
+
+    // helpers
+    private static int bucketOf(long micros) {
+        if (micros < SUB_BUCKETS) return (int) micros;
+
+        int msb = 63 - Long.numberOfLeadingZeros(micros);
+        int sub = (int) ((micros >>> (msb - 2)) & (SUB_BUCKETS - 1));
+
+        return SUB_BUCKETS + (msb - 2) * SUB_BUCKETS + sub;
+    }
+
+    private static long upperBoundOf(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+
+        int msb = (bucket - SUB_BUCKETS) / SUB_BUCKETS + 2;
+        int sub = (bucket - SUB_BUCKETS) % SUB_BUCKETS;
+        long lower = (long) (SUB_BUCKETS + sub) << (msb - 2);
+
+        return lower + (1L << (msb - 2)) - 1;
+    }
+}
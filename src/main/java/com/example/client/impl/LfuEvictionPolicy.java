@@ -0,0 +1,67 @@
+package com.example.client.impl;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+// least frequently used key goes first, ties are broken by insertion order
+public class LfuEvictionPolicy<K> implements EvictionPolicy<K> {
+    private final Map<K, Long> frequencies = new HashMap<>();
+    // frequency -> keys with that frequency, oldest first
+    private final TreeMap<Long, LinkedHashSet<K>> buckets = new TreeMap<>();
+
+    @Override
+    public void recordInsert(K key) {
+        if (frequencies.containsKey(key)) {
+            recordAccess(key);
+            return;
+        }
+
+        frequencies.put(key, 1L);
+        buckets.computeIfAbsent(1L, f -> new LinkedHashSet<>()).add(key);
+    }
+
+    @Override
+    public void recordAccess(K key) {
+        Long frequency = frequencies.get(key);
+        if (frequency == null) return;
+
+        removeFromBucket(key, frequency);
+        frequencies.put(key, frequency + 1);
+        buckets.computeIfAbsent(frequency + 1, f -> new LinkedHashSet<>()).add(key);
+    }
+
+    @Override
+    public void recordRemoval(K key) {
+        Long frequency = frequencies.remove(key);
+        if (frequency != null)
+            removeFromBucket(key, frequency);
+    }
+
+    @Override
+    public K selectVictim() {
+        if (buckets.isEmpty()) return null;
+
+        return buckets.firstEntry().getValue().iterator().next();
+    }
+
+    @Override
+    public int size() { return frequencies.size(); }
+
+    @Override
+    public void clear() {
+        frequencies.clear();
+        buckets.clear();
+    }
+
+    // helpers
+    private void removeFromBucket(K key, long frequency) {
+        LinkedHashSet<K> bucket = buckets.get(frequency);
+        if (bucket == null) return;
+
+        bucket.remove(key);
+        if (bucket.isEmpty())
+            buckets.remove(frequency);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.client.impl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// least recently used key goes first
+public class LruEvictionPolicy<K> implements EvictionPolicy<K> {
+    // access-ordered, the eldest entry is the least recently used one
+    private final Map<K, Boolean> order = new LinkedHashMap<>(16, 0.75f, true);
+
+    @Override
+    public void recordInsert(K key) {
+        order.put(key, Boolean.TRUE);
+    }
+
+    @Override
+    public void recordAccess(K key) {
+        order.get(key);
+    }
+
+    @Override
+    public void recordRemoval(K key) {
+        order.remove(key);
+    }
+
+    @Override
+    public K selectVictim() {
+        Iterator<K> it = order.keySet().iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+
+    @Override
+    public int size() { return order.size(); }
+
+    @Override
+    public void clear() { order.clear(); }
+}
@@ -1,100 +1,377 @@
 package com.example.client.impl;
 
+import com.example.client.CacheLoader;
 import com.example.client.CacheManager;
+import com.example.client.TodoStore;
+import com.example.client.event.TodoEvent;
+import com.example.client.event.TodoEventBus;
 import com.example.model.Todo;
+import com.example.model.TodoDelta;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
 
 /*
-    Implementation of an in-memory cache manager with Cache Lifetime (TTL) support
+    Implementation of an in-memory cache manager with Cache Lifetime (TTL) support.
+    In bounded mode (created with limits and an eviction policy) the number of cached todos,
+    the number of cached users and the estimated total size are kept under the given limits;
+    hits go to lossy striped ReadBuffers that writes drain under the eviction lock, so reads never take it.
+    In refresh-ahead mode todo lists older than the soft TTL are still served while a background
+    task reloads them, only lists older than the hard TTL are dropped.
+    In compact mode (see compact()) todos live in a columnar TodoTable and lists keep only ids,
+    reads return flyweight views; there is no TodoStore then, so lists are filtered by scanning.
+    Cached todos are frozen copies (callers keep their own todos editable) and cached lists are
+    immutable snapshots published as a whole (per user in a ConcurrentHashMap, the all todos one in
+    an AtomicReference): readers get the cached list itself without copying or locking, writers
+    replace it and expired entries are dropped only if nobody replaced them
  */
 public class MemoryCacheManager implements CacheManager {
     // todos cache by user id
-    private final Map<Long, List<Todo>> userTodosCache = new ConcurrentHashMap<>();
+    private final Map<Long, Snapshot> userTodosCache = new ConcurrentHashMap<>();
     // all todos cache
-    private List<Todo> allTodosCache = null;
-    // todo cache by id
-    private final Map<Long, Todo> todoCache = new ConcurrentHashMap<>();
+    private final AtomicReference<Snapshot> allTodosCache = new AtomicReference<>();
+    // todo cache by id, with the time each was cached
+    private final Map<Long, CachedTodo> todoCache = new ConcurrentHashMap<>();
+    // when applyDelta last confirmed each user's list, the unchanged todos of that user count as cached then
+    private final Map<Long, Long> listRenewals = new ConcurrentHashMap<>();
 
-    // Cache creation time
-    private final Map<Long, Long> cacheTimestamps = new ConcurrentHashMap<>();
-    private Long allTodosTimestamp = null;
+    // a cached list and its creation time, never changed once published
+    private record Snapshot(List<Todo> todos, long cachedAt) {}
+
+    private record CachedTodo(Todo todo, long cachedAt) {}
 
     // cache lifetime (5 min in ms)
     private static final long DEFAULT_TTL = TimeUnit.MINUTES.toMillis(5);
-    private long ttl = DEFAULT_TTL;
+    private volatile long ttl = DEFAULT_TTL;
+
+    // refresh-ahead mode, disabled while refreshLoader is null
+    private volatile long softTtl = -1;
+    private volatile CacheLoader refreshLoader = null;
+    // the TTL the hard one replaced, restored when refresh-ahead is disabled
+    private long regularTtl = DEFAULT_TTL;
+    private volatile Executor refreshExecutor = null;
+    // the default refresh pool, created and shut down by this cache; null for caller-supplied executors
+    private ExecutorService ownedRefreshExecutor = null;
+    private final Set<Long> refreshingUsers = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean refreshingAllTodos = new AtomicBoolean();
+
+    // bounded mode, policies are null when the cache is unbounded
+    private final int maxEntries;
+    private final long maxWeightBytes;
+    private final EvictionPolicy<Long> todoPolicy;
+    private final EvictionPolicy<Long> userPolicy;
+    private final Object evictionLock = new Object();
+    // hits of bounded mode, recorded without evictionLock and handed to the policies under it
+    private final ReadBuffer<Long> todoReads;
+    private final ReadBuffer<Long> userReads;
+    // estimated weights of tracked entries, guarded by evictionLock
+    private final Map<Long, Long> todoWeights = new HashMap<>();
+    private final Map<Long, Long> userWeights = new HashMap<>();
+    private long allTodosWeight = 0;
+    private long totalWeight = 0;
+    // full expiry sweeps are O(n), so they run at most once per interval
+    private static final long CLEAN_UP_INTERVAL = TimeUnit.SECONDS.toMillis(1);
+    private long lastCleanUp = 0;
+
+    // hit/miss/eviction counters, cheap enough to stay on all the time
+    private final CacheMetrics metrics = new CacheMetrics();
+    // gets CacheInvalidated events, null if nobody listens
+    private volatile TodoEventBus events;
+
+    // secondary indexes over the cached todos, lists are complete for the TTL (the hard one in refresh-ahead mode);
+    // null in compact mode
+    private final TodoStore todoStore;
+    // todos and their cache times in compact mode, null otherwise (todoCache entries carry both then)
+    private final TodoTable table;
+
+    public MemoryCacheManager() {
+        this(false);
+    }
+
+    private MemoryCacheManager(boolean compact) {
+        this.maxEntries = Integer.MAX_VALUE;
+        this.maxWeightBytes = Long.MAX_VALUE;
+        this.todoPolicy = null;
+        this.userPolicy = null;
+        this.todoReads = null;
+        this.userReads = null;
+        this.table = compact ? new TodoTable() : null;
+        this.todoStore = compact ? null : new TodoStore(() -> ttl);
+    }
+
+    // maxEntries limits todos and users separately, maxWeightBytes limits the estimated size of everything
+    public MemoryCacheManager(int maxEntries, long maxWeightBytes, Supplier<EvictionPolicy<Long>> policyFactory) {
+        this(maxEntries, maxWeightBytes, policyFactory, false);
+    }
+
+    private MemoryCacheManager(int maxEntries, long maxWeightBytes, Supplier<EvictionPolicy<Long>> policyFactory,
+                               boolean compact) {
+        if (maxEntries <= 0)
+            throw new IllegalArgumentException("Max entries must be positive: " + maxEntries);
+        if (maxWeightBytes <= 0)
+            throw new IllegalArgumentException("Max weight must be positive: " + maxWeightBytes);
+        if (policyFactory == null)
+            throw new IllegalArgumentException("Eviction policy factory cannot be null");
+
+        this.maxEntries = maxEntries;
+        this.maxWeightBytes = maxWeightBytes;
+        this.todoPolicy = policyFactory.get();
+        this.userPolicy = policyFactory.get();
+        this.todoReads = new ReadBuffer<>();
+        this.userReads = new ReadBuffer<>();
+        this.table = compact ? new TodoTable() : null;
+        this.todoStore = compact ? null : new TodoStore(() -> ttl);
+    }
+
+    // a cache that keeps todos in columns, a fraction of the memory for large datasets
+    public static MemoryCacheManager compact() {
+        return new MemoryCacheManager(true);
+    }
+
+    public static MemoryCacheManager compact(int maxEntries, long maxWeightBytes,
+                                             Supplier<EvictionPolicy<Long>> policyFactory) {
+        return new MemoryCacheManager(maxEntries, maxWeightBytes, policyFactory, true);
+    }
 
     @Override
     public void cacheUserTodos(Long userId, List<Todo> todos) {
         if (userId == null || todos == null) return;
+        todos = shared(todos);
+
+        if (isBounded()) {
+            synchronized (evictionLock) {
+                userTodosCache.put(userId, snapshot(todos));
+                trackUser(userId, estimateListSize(todos));
+                // indexed first, so that todos evicted below are dropped from the store too
+                if (todoStore != null)
+                    todoStore.replaceUser(userId, todos);
+
+                // cache each todo
+                for (Todo t : todos) {
+                    putTodo(t);
+                }
+                evictIfNeeded();
+            }
+            return;
+        }
 
-        userTodosCache.put(userId, new ArrayList<>(todos));
-        cacheTimestamps.put(userId, System.currentTimeMillis());
+        userTodosCache.put(userId, snapshot(todos));
 
         // cache each todo
         for (Todo t : todos) {
-            cacheTodo(t);
+            putTodo(t);
+        }
+        if (todoStore != null)
+            todoStore.replaceUser(userId, todos);
+    }
+
+    // O(delta): the list is replaced in one step (only renewed if nothing changed), changed todos are
+    // cached and re-indexed, unchanged ones are renewed through listRenewals
+    @Override
+    public void applyDelta(Long userId, List<Todo> todos, TodoDelta delta) {
+        if (userId == null || todos == null || delta == null) return;
+
+        // eviction bookkeeping is easier to keep right with the full path
+        if (isBounded()) {
+            CacheManager.super.applyDelta(userId, todos, delta);
+            return;
+        }
+
+        Snapshot current = userTodosCache.get(userId);
+        if (delta.isEmpty() && current != null && current.todos().size() == todos.size()) {
+            userTodosCache.replace(userId, current, new Snapshot(current.todos(), System.currentTimeMillis()));
+        } else {
+            todos = shared(todos);
+            userTodosCache.put(userId, snapshot(todos));
+        }
+
+        listRenewals.put(userId, System.currentTimeMillis());
+        for (Todo t : delta.getAdded()) {
+            putTodo(shared(t));
         }
+        for (Todo t : delta.getUpdated()) {
+            putTodo(shared(t));
+        }
+        if (!delta.getRemovedIds().isEmpty()) {
+            Set<Long> removed = new HashSet<>(delta.getRemovedIds());
+            for (Long id : removed) {
+                dropTodo(id);
+            }
+            allTodosCache.updateAndGet(snapshot -> without(snapshot, removed));
+        }
+        if (todoStore != null)
+            todoStore.applyDelta(userId, todos, delta);
     }
 
     @Override
     public Optional<List<Todo>> getCachedUserTodos(Long userId) {
         if (userId == null) return Optional.empty();
 
-        Long timestamp = cacheTimestamps.get(userId);
-        if (timestamp != null && isExpired(timestamp)) {
+        Snapshot snapshot = userTodosCache.get(userId);
+        if (snapshot != null && isExpired(snapshot.cachedAt())) {
             // cache is outdated -> delete it
-            userTodosCache.remove(userId);
-            cacheTimestamps.remove(userId);
+            expireUser(userId, snapshot);
+            metrics.recordMiss(Region.USER_TODOS);
+            return Optional.empty();
+        }
+
+        List<Todo> cached = readList(snapshot);
+        if (cached == null) {
+            metrics.recordMiss(Region.USER_TODOS);
             return Optional.empty();
         }
 
-        List<Todo> cached = userTodosCache.get(userId);
-        return cached != null ? Optional.of(new ArrayList<>(cached)) : Optional.empty();
+        metrics.recordHit(Region.USER_TODOS);
+        if (isBounded())
+            userReads.offer(userId);
+        if (needsRefresh(snapshot.cachedAt()))
+            scheduleUserRefresh(userId);
+
+        return Optional.of(cached);
     }
 
     @Override
     public void cacheAllTodos(List<Todo> todos) {
         if (todos == null) return;
+        todos = shared(todos);
+
+        if (isBounded()) {
+            synchronized (evictionLock) {
+                allTodosCache.set(snapshot(todos));
+                totalWeight += estimateListSize(todos) - allTodosWeight;
+                allTodosWeight = estimateListSize(todos);
+                if (todoStore != null)
+                    todoStore.replaceAll(todos);
+
+                // cache each todo
+                for (Todo t : todos) {
+                    putTodo(t);
+                }
+                evictIfNeeded();
+            }
+            return;
+        }
 
-        this.allTodosCache = new ArrayList<>(todos);
-        this.allTodosTimestamp = System.currentTimeMillis();
+        allTodosCache.set(snapshot(todos));
 
         // cache each todo
         for (Todo t : todos) {
-            cacheTodo(t);
+            putTodo(t);
         }
+        if (todoStore != null)
+            todoStore.replaceAll(todos);
     }
 
     @Override
     public Optional<List<Todo>> getCachedAllTodos() {
-        if (allTodosTimestamp != null && isExpired(allTodosTimestamp)) {
+        Snapshot snapshot = allTodosCache.get();
+        if (snapshot != null && isExpired(snapshot.cachedAt())) {
             // cache is outdated -> delete it
-            allTodosCache = null;
-            allTodosTimestamp = null;
+            if (dropAllTodos(snapshot))
+                metrics.recordExpiration();
+            metrics.recordMiss(Region.ALL_TODOS);
+            return Optional.empty();
+        }
+
+        List<Todo> cached = readList(snapshot);
+        if (cached == null) {
+            metrics.recordMiss(Region.ALL_TODOS);
             return Optional.empty();
         }
 
-        return allTodosCache != null ? Optional.of(new ArrayList<>(allTodosCache)) : Optional.empty();
+        metrics.recordHit(Region.ALL_TODOS);
+        if (needsRefresh(snapshot.cachedAt()))
+            scheduleAllTodosRefresh();
+        return Optional.of(cached);
     }
 
     @Override
     public void cacheTodo(Todo todo) {
-        if (todo != null && todo.getId() != null) {
-            todoCache.put(todo.getId(), todo);
+        if (todo == null || todo.getId() == null) return;
+        todo = shared(todo);
+
+        putTodo(todo);
+        if (todoStore != null)
+            todoStore.put(todo);
+    }
+
+    // caches a single todo without touching the store
+    private void putTodo(Todo todo) {
+        if (todo == null || todo.getId() == null) return;
+
+        if (isBounded()) {
+            synchronized (evictionLock) {
+                storeTodo(todo);
+                trackTodo(todo.getId(), estimateTodoSize(todo));
+                evictIfNeeded();
+            }
+            return;
         }
+
+        storeTodo(todo);
+    }
+
+    private void storeTodo(Todo todo) {
+        long now = System.currentTimeMillis();
+        if (table != null) {
+            table.put(todo, now);
+            return;
+        }
+
+        // handed out to every reader from now on, frozen by shared()
+        todoCache.put(todo.getId(), new CachedTodo(todo, now));
     }
 
     @Override
     public Optional<Todo> getCachedTodo(Long id) {
         if (id == null) return Optional.empty();
 
-        return Optional.ofNullable(todoCache.get(id));
+        Todo cached;
+        if (table != null) {
+            long cachedAt = table.getCachedAt(id);
+            if (cachedAt >= 0 && isExpired(cachedAt) && isExpired(todoCachedAt(table.get(id), cachedAt))) {
+                dropTodo(id);
+                metrics.recordExpiration();
+                invalidated(Region.TODO, id);
+                metrics.recordMiss(Region.TODO);
+                return Optional.empty();
+            }
+            cached = table.get(id);
+        } else {
+            CachedTodo entry = todoCache.get(id);
+            if (entry != null && isExpired(todoCachedAt(entry.todo(), entry.cachedAt()))) {
+                expireTodo(id, entry);
+                metrics.recordMiss(Region.TODO);
+                return Optional.empty();
+            }
+            cached = entry != null ? entry.todo() : null;
+        }
+        if (cached == null) {
+            metrics.recordMiss(Region.TODO);
+            return Optional.empty();
+        }
+
+        metrics.recordHit(Region.TODO);
+        if (isBounded())
+            todoReads.offer(id);
+
+        return Optional.of(cached);
     }
 
     @Override
@@ -102,62 +379,552 @@ public class MemoryCacheManager implements CacheManager {
         if (id == null) return;
 
         // remove from todos cache
-        todoCache.remove(id);
-        // remove from users cache
-        for (Map.Entry<Long, List<Todo>> entry : userTodosCache.entrySet()) {
-            entry.getValue().removeIf(todo -> id.equals(todo.getId()));
+        dropTodo(id);
+        if (todoStore != null)
+            todoStore.remove(id);
+        // lists are replaced with copies without it, readers keep the snapshot they got
+        Set<Long> removed = Set.of(id);
+        userTodosCache.replaceAll((userId, snapshot) -> without(snapshot, removed));
+        allTodosCache.updateAndGet(snapshot -> without(snapshot, removed));
+    }
+
+    @Override
+    public void removeFromCache(Collection<Long> ids) {
+        Set<Long> removed = new HashSet<>(ids);
+        removed.remove(null);
+        if (removed.isEmpty()) return;
+
+        for (Long id : removed) {
+            dropTodo(id);
+            if (todoStore != null)
+                todoStore.remove(id);
         }
+        // every list is walked once for the whole batch
+        userTodosCache.replaceAll((userId, snapshot) -> without(snapshot, removed));
+        allTodosCache.updateAndGet(snapshot -> without(snapshot, removed));
     }
 
     @Override
     public void clearCache() {
+        if (todoStore != null)
+            todoStore.clear();
+        if (table != null)
+            table.clear();
         userTodosCache.clear();
         todoCache.clear();
-        cacheTimestamps.clear();
-        allTodosCache = null;
-        allTodosTimestamp = null;
+        listRenewals.clear();
+        allTodosCache.set(null);
+
+        if (isBounded()) {
+            synchronized (evictionLock) {
+                todoPolicy.clear();
+                userPolicy.clear();
+                todoWeights.clear();
+                userWeights.clear();
+                allTodosWeight = 0;
+                totalWeight = 0;
+            }
+        }
+        invalidated(null, null);
     }
 
     @Override
     public void clearUserCache(Long userId) {
         if (userId == null) return;
 
-        userTodosCache.remove(userId);
-        cacheTimestamps.remove(userId);
+        if (isBounded()) {
+            synchronized (evictionLock) {
+                userTodosCache.remove(userId);
+                untrackUser(userId);
+            }
+        } else {
+            userTodosCache.remove(userId);
+        }
+        // the list is gone, its todos expire on their own times again
+        listRenewals.remove(userId);
+        invalidated(Region.USER_TODOS, userId);
     }
 
+    @Override
+    public void setEventBus(TodoEventBus events) { this.events = events; }
+
     @Override
     public CacheStats getCacheStats() {
         int usersCount = userTodosCache.size();
-        int todosCount = todoCache.size();
+        int todosCount = table != null ? table.size() : todoCache.size();
 
         long sizeBytes = estimateSize();
 
-        return new CacheStats(usersCount, todosCount, sizeBytes);
+        return new CacheStats(usersCount, todosCount, sizeBytes,
+                metrics.getEvictionCount(), metrics.getExpirationCount(), metrics.snapshot());
+    }
+
+    @Override
+    public void recordLoadTime(Region region, long nanos) {
+        if (region != null)
+            metrics.recordLoad(region, nanos);
+    }
+
+    public CacheMetrics getMetrics() { return metrics; }
+
+    @Override
+    public Optional<TodoStore> getTodoStore() { return Optional.ofNullable(todoStore); }
+
+    public boolean isCompact() { return table != null; }
+
+    // serve lists older than softTtlMillis while they are reloaded through the loader,
+    // drop them after hardTtlMillis (which replaces the regular TTL)
+    // refreshes run on a pool of 2 daemon threads owned by the cache, shut down when refresh-ahead is
+    // disabled or enabled again
+    public synchronized void enableRefreshAhead(long softTtlMillis, long hardTtlMillis, CacheLoader loader) {
+        validateRefreshAhead(softTtlMillis, hardTtlMillis, loader);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2, runnable -> {
+            Thread thread = new Thread(runnable, "cache-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        enableRefreshAhead(softTtlMillis, hardTtlMillis, loader, pool);
+        ownedRefreshExecutor = pool;
+    }
+
+    // the executor stays the caller's, it is never shut down here
+    public synchronized void enableRefreshAhead(long softTtlMillis, long hardTtlMillis, CacheLoader loader,
+                                                Executor executor) {
+        validateRefreshAhead(softTtlMillis, hardTtlMillis, loader);
+        if (executor == null)
+            throw new IllegalArgumentException("Loader and executor cannot be null");
+
+        if (refreshLoader == null)
+            this.regularTtl = ttl;
+        this.ttl = hardTtlMillis;
+        this.softTtl = softTtlMillis;
+        this.refreshExecutor = executor;
+        this.refreshLoader = loader;
+        shutDownOwnedRefreshExecutor();
+    }
+
+    public synchronized void disableRefreshAhead() {
+        if (refreshLoader == null) return;
+
+        this.refreshLoader = null;
+        this.softTtl = -1;
+        this.ttl = regularTtl;
+        shutDownOwnedRefreshExecutor();
+    }
+
+    public boolean isRefreshAheadEnabled() { return refreshLoader != null; }
+
+    // drops every expired entry, in bounded mode this also runs before anything is evicted
+    public void cleanUp() {
+        if (table != null) {
+            for (long id : table.idsCachedBefore(System.currentTimeMillis() - ttl)) {
+                Todo todo = table.get(id);
+                if (todo == null || !isExpired(todoCachedAt(todo, table.getCachedAt(id)))) continue;
+
+                dropTodo(id);
+                metrics.recordExpiration();
+                invalidated(Region.TODO, id);
+            }
+        }
+        for (Map.Entry<Long, CachedTodo> entry : todoCache.entrySet()) {
+            CachedTodo cached = entry.getValue();
+            if (isExpired(todoCachedAt(cached.todo(), cached.cachedAt())))
+                expireTodo(entry.getKey(), cached);
+        }
+        for (Map.Entry<Long, Snapshot> entry : userTodosCache.entrySet()) {
+            if (isExpired(entry.getValue().cachedAt()))
+                expireUser(entry.getKey(), entry.getValue());
+        }
+        Snapshot allTodos = allTodosCache.get();
+        if (allTodos != null && isExpired(allTodos.cachedAt()) && dropAllTodos(allTodos))
+            metrics.recordExpiration();
     }
 
     // helpers
-    private boolean isExpired(Long timestamp) {
+    // when a todo counts as cached: its own time, or later if applyDelta confirmed its owner's list since
+    private long todoCachedAt(Todo todo, long cachedAt) {
+        if (listRenewals.isEmpty() || todo == null || todo.getUserId() == null) return cachedAt;
+
+        Long renewed = listRenewals.get(todo.getUserId());
+        return renewed != null ? Math.max(cachedAt, renewed) : cachedAt;
+    }
+
+    private boolean isExpired(long timestamp) {
         return (System.currentTimeMillis() - timestamp) > ttl;
     }
 
+    private boolean needsRefresh(long timestamp) {
+        long soft = softTtl;
+        return soft > 0 && (System.currentTimeMillis() - timestamp) > soft;
+    }
+
+    private void scheduleUserRefresh(Long userId) {
+        CacheLoader loader = refreshLoader;
+        if (loader == null || !refreshingUsers.add(userId)) return;
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    long start = System.nanoTime();
+                    cacheUserTodos(userId, loader.loadUserTodos(userId));
+                    metrics.recordLoad(Region.USER_TODOS, System.nanoTime() - start);
+                    metrics.recordRefresh();
+                } catch (Exception e) {
+                    // keep serving the stale list, it is dropped once the hard TTL passes
+                    metrics.recordRefreshFailure();
+                } finally {
+                    refreshingUsers.remove(userId);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshingUsers.remove(userId);
+        }
+    }
+
+    private void scheduleAllTodosRefresh() {
+        CacheLoader loader = refreshLoader;
+        if (loader == null || !refreshingAllTodos.compareAndSet(false, true)) return;
+
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    long start = System.nanoTime();
+                    cacheAllTodos(loader.loadAllTodos());
+                    metrics.recordLoad(Region.ALL_TODOS, System.nanoTime() - start);
+                    metrics.recordRefresh();
+                } catch (Exception e) {
+                    // keep serving the stale list, it is dropped once the hard TTL passes
+                    metrics.recordRefreshFailure();
+                } finally {
+                    refreshingAllTodos.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            refreshingAllTodos.set(false);
+        }
+    }
+
+    private boolean isBounded() {
+        return todoPolicy != null;
+    }
+
+    private static void validateRefreshAhead(long softTtlMillis, long hardTtlMillis, CacheLoader loader) {
+        if (softTtlMillis <= 0)
+            throw new IllegalArgumentException("Soft TTL must be positive: " + softTtlMillis);
+        if (hardTtlMillis < softTtlMillis)
+            throw new IllegalArgumentException("Hard TTL cannot be shorter than soft TTL: " + hardTtlMillis);
+        if (loader == null)
+            throw new IllegalArgumentException("Loader and executor cannot be null");
+    }
+
+    // running refreshes finish, new ones are rejected (and skipped); callers hold the monitor
+    private void shutDownOwnedRefreshExecutor() {
+        if (ownedRefreshExecutor != null) {
+            ownedRefreshExecutor.shutdown();
+            ownedRefreshExecutor = null;
+        }
+    }
+
+    // the snapshot without the todos, or the snapshot itself if it has none of them
+    private static Snapshot without(Snapshot snapshot, Set<Long> ids) {
+        if (snapshot == null) return null;
+
+        if (snapshot.todos() instanceof TodoTable.IdList list) {
+            TodoTable.IdList remaining = list;
+            for (Long id : ids) {
+                remaining = remaining.without(id);
+            }
+            return remaining != list ? new Snapshot(remaining, snapshot.cachedAt()) : snapshot;
+        }
+
+        List<Todo> todos = snapshot.todos();
+        List<Todo> remaining = null;
+        for (int i = 0; i < todos.size(); i++) {
+            boolean removed = ids.contains(todos.get(i).getId());
+            if (removed && remaining == null)
+                remaining = new ArrayList<>(todos.subList(0, i));
+            else if (!removed && remaining != null)
+                remaining.add(todos.get(i));
+        }
+        return remaining != null ? new Snapshot(Collections.unmodifiableList(remaining), snapshot.cachedAt()) : snapshot;
+    }
+
+    private void dropTodo(Long id) {
+        if (isBounded()) {
+            synchronized (evictionLock) {
+                unstoreTodo(id);
+                untrackTodo(id);
+            }
+            return;
+        }
+
+        unstoreTodo(id);
+    }
+
+    private void unstoreTodo(Long id) {
+        if (table != null) {
+            table.remove(id);
+            return;
+        }
+
+        todoCache.remove(id);
+    }
+
+    // drops an expired todo unless it was cached again meanwhile
+    private void expireTodo(Long id, CachedTodo entry) {
+        boolean removed;
+        if (isBounded()) {
+            synchronized (evictionLock) {
+                removed = todoCache.remove(id, entry);
+                if (removed) untrackTodo(id);
+            }
+        } else {
+            removed = todoCache.remove(id, entry);
+        }
+
+        if (removed) {
+            if (todoStore != null)
+                todoStore.evict(id);
+            metrics.recordExpiration();
+            invalidated(Region.TODO, id);
+        }
+    }
+
+    // drops an expired list unless it was replaced meanwhile
+    private void expireUser(Long userId, Snapshot snapshot) {
+        boolean removed;
+        if (isBounded()) {
+            synchronized (evictionLock) {
+                removed = userTodosCache.remove(userId, snapshot);
+                if (removed) untrackUser(userId);
+            }
+        } else {
+            removed = userTodosCache.remove(userId, snapshot);
+        }
+
+        if (removed) {
+            metrics.recordExpiration();
+            invalidated(Region.USER_TODOS, userId);
+        }
+    }
+
+    // lists keep only ids in compact mode, otherwise the todos are shared and frozen;
+    // `todos` comes from shared(), so it is the cache's own list
+    private Snapshot snapshot(List<Todo> todos) {
+        if (table != null)
+            return new Snapshot(new TodoTable.IdList(table, todos), System.currentTimeMillis());
+
+        return new Snapshot(Collections.unmodifiableList(todos), System.currentTimeMillis());
+    }
+
+    // what the cache keeps of a caller's todo: a frozen copy, the caller's own stays editable;
+    // already frozen todos are shared as they are, the table copies them into its columns anyway
+    private Todo shared(Todo todo) {
+        return todo == null || todo.isFrozen() || table != null ? todo : todo.copy().freeze();
+    }
+
+    private List<Todo> shared(List<Todo> todos) {
+        if (table != null) return todos;
+
+        List<Todo> copies = new ArrayList<>(todos.size());
+        for (Todo todo : todos) {
+            copies.add(shared(todo));
+        }
+        return copies;
+    }
+
+    // the cached list itself, null if there is none or (compact mode) some of its todos are gone
+    private List<Todo> readList(Snapshot snapshot) {
+        if (snapshot == null) return null;
+
+        return snapshot.todos() instanceof TodoTable.IdList ids ? ids.resolve() : snapshot.todos();
+    }
+
+    private void dropAllTodos() {
+        Snapshot snapshot = allTodosCache.get();
+        if (snapshot != null)
+            dropAllTodos(snapshot);
+    }
+
+    // false if the list was replaced meanwhile
+    private boolean dropAllTodos(Snapshot snapshot) {
+        if (isBounded()) {
+            synchronized (evictionLock) {
+                if (!allTodosCache.compareAndSet(snapshot, null))
+                    return false;
+                totalWeight -= allTodosWeight;
+                allTodosWeight = 0;
+            }
+        } else if (!allTodosCache.compareAndSet(snapshot, null)) {
+            return false;
+        }
+
+        invalidated(Region.ALL_TODOS, null);
+        return true;
+    }
+
+    // events are only created when somebody listens; evictions run under evictionLock,
+    // so a slow subscriber loses invalidations instead of stalling cache writes
+    private void invalidated(Region region, Long key) {
+        TodoEventBus bus = events;
+        if (bus != null && bus.hasSubscribers())
+            bus.tryPublish(new TodoEvent.CacheInvalidated(region, key));
+    }
+
+    // bookkeeping for bounded mode, callers hold evictionLock
+    private void trackTodo(Long id, long weight) {
+        Long previous = todoWeights.put(id, weight);
+        totalWeight += weight - (previous != null ? previous : 0);
+
+        if (previous == null)
+            todoPolicy.recordInsert(id);
+        else
+            todoPolicy.recordAccess(id);
+    }
+
+    private void untrackTodo(Long id) {
+        Long weight = todoWeights.remove(id);
+        if (weight != null) {
+            totalWeight -= weight;
+            todoPolicy.recordRemoval(id);
+        }
+    }
+
+    private void trackUser(Long userId, long weight) {
+        Long previous = userWeights.put(userId, weight);
+        totalWeight += weight - (previous != null ? previous : 0);
+
+        if (previous == null)
+            userPolicy.recordInsert(userId);
+        else
+            userPolicy.recordAccess(userId);
+    }
+
+    private void untrackUser(Long userId) {
+        Long weight = userWeights.remove(userId);
+        if (weight != null) {
+            totalWeight -= weight;
+            userPolicy.recordRemoval(userId);
+        }
+    }
+
+    private void evictIfNeeded() {
+        drainReads();
+        if (!isOverLimits()) return;
+
+        // expired entries go first, they would not be served anyway
+        long now = System.currentTimeMillis();
+        if (now - lastCleanUp > CLEAN_UP_INTERVAL) {
+            lastCleanUp = now;
+            cleanUp();
+        }
+
+        while (isOverLimits()) {
+            if (userWeights.size() > maxEntries) {
+                evictUser(userPolicy.selectVictim());
+            } else if (todoWeights.size() > maxEntries) {
+                evictTodo(todoPolicy.selectVictim());
+            } else if (!todoWeights.isEmpty()) {
+                evictTodo(todoPolicy.selectVictim());
+            } else if (!userWeights.isEmpty()) {
+                evictUser(userPolicy.selectVictim());
+            } else if (allTodosCache.get() != null) {
+                dropAllTodos();
+                metrics.recordEviction();
+            } else {
+                break;
+            }
+        }
+    }
+
+    // buffered hits go to the policies before they pick victims, entries dropped meanwhile are skipped
+    private void drainReads() {
+        todoReads.drain(id -> {
+            if (todoWeights.containsKey(id)) todoPolicy.recordAccess(id);
+        });
+        userReads.drain(userId -> {
+            if (userWeights.containsKey(userId)) userPolicy.recordAccess(userId);
+        });
+    }
+
+    private boolean isOverLimits() {
+        return todoWeights.size() > maxEntries
+                || userWeights.size() > maxEntries
+                || totalWeight > maxWeightBytes;
+    }
+
+    private void evictTodo(Long id) {
+        if (id == null) {
+            // the policy lost track of its todos, drop them rather than keep them unbounded
+            for (Map.Entry<Long, Long> entry : todoWeights.entrySet()) {
+                unstoreTodo(entry.getKey());
+                if (todoStore != null)
+                    todoStore.evict(entry.getKey());
+                totalWeight -= entry.getValue();
+                metrics.recordEviction();
+                invalidated(Region.TODO, entry.getKey());
+            }
+            todoPolicy.clear();
+            todoWeights.clear();
+            return;
+        }
+
+        dropTodo(id);
+        if (todoStore != null)
+            todoStore.evict(id);
+        metrics.recordEviction();
+        invalidated(Region.TODO, id);
+    }
+
+    private void evictUser(Long userId) {
+        if (userId == null) {
+            // same for lists
+            for (Map.Entry<Long, Long> entry : userWeights.entrySet()) {
+                userTodosCache.remove(entry.getKey());
+                listRenewals.remove(entry.getKey());
+                totalWeight -= entry.getValue();
+                metrics.recordEviction();
+                invalidated(Region.USER_TODOS, entry.getKey());
+            }
+            userPolicy.clear();
+            userWeights.clear();
+            return;
+        }
+
+        clearUserCache(userId);
+        metrics.recordEviction();
+    }
+
     private long estimateSize() {
         long size = 0;
 
+        if (table != null) {
+            size += table.getMemoryBytes();
+            // id lists
+            for (Snapshot snapshot : userTodosCache.values()) {
+                size += 50 + snapshot.todos().size() * 8L;
+            }
+            size += userTodosCache.size() * 16L;
+            return size;
+        }
+
         // Estimating the size of todos cache
-        for (Todo t : todoCache.values()) {
-            size += estimateTodoSize(t);
+        for (CachedTodo entry : todoCache.values()) {
+            size += estimateTodoSize(entry.todo());
         }
 
         // Estimating the size of data structures
         size += userTodosCache.size() * 50L; // Approximately
-        size += cacheTimestamps.size() * 16L;
+        size += userTodosCache.size() * 16L;
+        size += todoCache.size() * 16L;
 
         return size;
     }
 
     private long estimateTodoSize(Todo todo) {
         if (todo == null) return 0;
+        if (table != null) return TodoTable.estimateRowSize(todo);
 
         long size = 0;
         size += 16; // object title
@@ -172,7 +939,16 @@ public class MemoryCacheManager implements CacheManager {
         return size;
     }
 
+    // the list only holds references, the todos themselves are weighed in todoCache
+    private long estimateListSize(List<Todo> todos) {
+        return 50 + todos.size() * 8L;
+    }
+
     public void setTtl(long ttlMillis) { this.ttl = ttlMillis; }
 
     public long getTtl() { return ttl; }
+
+    public int getMaxEntries() { return maxEntries; }
+
+    public long getMaxWeightBytes() { return maxWeightBytes; }
 }
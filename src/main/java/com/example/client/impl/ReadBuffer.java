@@ -0,0 +1,71 @@
+package com.example.client.impl;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+/*
+    Lossy striped buffer of cache hits, so reads record accesses without taking the eviction lock.
+    Threads are spread over stripes by id; a full or contended stripe drops the access, which only
+    blurs the policy's recency/frequency. Any number of threads offer, one at a time drains
+    (the cache calls drain() under its eviction lock)
+ */
+class ReadBuffer<K> {
+    private static final int STRIPE_SIZE = 16;
+    private static final int MASK = STRIPE_SIZE - 1;
+
+    private final Stripe<K>[] stripes;
+    private final int stripeMask;
+
+    private static class Stripe<K> {
+        private final AtomicReferenceArray<K> slots = new AtomicReferenceArray<>(STRIPE_SIZE);
+        // next slot to write, reserved by CAS
+        private final AtomicLong tail = new AtomicLong();
+        // next slot to drain, only written by the draining thread
+        private volatile long head = 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    ReadBuffer() {
+        int count = Integer.highestOneBit(Math.max(4, Runtime.getRuntime().availableProcessors() * 4) - 1) << 1;
+        this.stripes = new Stripe[count];
+        this.stripeMask = count - 1;
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe<>();
+        }
+    }
+
+    // false if the access was dropped
+    boolean offer(K key) {
+        Stripe<K> stripe = stripes[stripeIndex()];
+        long tail = stripe.tail.get();
+        if (tail - stripe.head >= STRIPE_SIZE || !stripe.tail.compareAndSet(tail, tail + 1))
+            return false;
+
+        stripe.slots.lazySet((int) (tail & MASK), key);
+        return true;
+    }
+
+    // hands every buffered access to the consumer, slots reserved but not written yet wait for the next drain
+    void drain(Consumer<? super K> consumer) {
+        for (Stripe<K> stripe : stripes) {
+            long head = stripe.head;
+            long tail = stripe.tail.get();
+            for (; head < tail; head++) {
+                int index = (int) (head & MASK);
+                K key = stripe.slots.get(index);
+                if (key == null) break;
+
+                stripe.slots.lazySet(index, null);
+                consumer.accept(key);
+            }
+            stripe.head = head;
+        }
+    }
+
+    private int stripeIndex() {
+        long id = Thread.currentThread().threadId();
+        int hash = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & stripeMask;
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.client.impl;
+
+import com.example.client.CacheManager;
+import com.example.client.TodoStore;
+import com.example.client.event.TodoEventBus;
+import com.example.model.Todo;
+import com.example.model.TodoDelta;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/*
+    Two-level cache: a fast L1 (usually MemoryCacheManager) in front of a larger or persistent
+    L2 (usually DiskCacheManager). Reads fall through to L2 and promote hits into L1, writes and
+    invalidations go to both. L2 failures are logged and treated as misses, so a broken disk
+    cache never breaks the client
+ */
+public class TieredCacheManager implements CacheManager {
+    private final CacheManager l1;
+    private final CacheManager l2;
+
+    public TieredCacheManager(CacheManager l1, CacheManager l2) {
+        if (l1 == null || l2 == null)
+            throw new IllegalArgumentException("Both cache levels are required");
+
+        this.l1 = l1;
+        this.l2 = l2;
+    }
+
+    @Override
+    public void cacheUserTodos(Long userId, List<Todo> todos) {
+        l1.cacheUserTodos(userId, todos);
+        onL2(() -> l2.cacheUserTodos(userId, todos));
+    }
+
+    @Override
+    public void applyDelta(Long userId, List<Todo> todos, TodoDelta delta) {
+        l1.applyDelta(userId, todos, delta);
+        onL2(() -> l2.applyDelta(userId, todos, delta));
+    }
+
+    @Override
+    public Optional<List<Todo>> getCachedUserTodos(Long userId) {
+        Optional<List<Todo>> cached = l1.getCachedUserTodos(userId);
+        if (cached.isPresent()) return cached;
+
+        cached = fromL2(() -> l2.getCachedUserTodos(userId));
+        cached.ifPresent(todos -> l1.cacheUserTodos(userId, todos));
+        return cached;
+    }
+
+    @Override
+    public void cacheAllTodos(List<Todo> todos) {
+        l1.cacheAllTodos(todos);
+        onL2(() -> l2.cacheAllTodos(todos));
+    }
+
+    @Override
+    public Optional<List<Todo>> getCachedAllTodos() {
+        Optional<List<Todo>> cached = l1.getCachedAllTodos();
+        if (cached.isPresent()) return cached;
+
+        cached = fromL2(l2::getCachedAllTodos);
+        cached.ifPresent(l1::cacheAllTodos);
+        return cached;
+    }
+
+    @Override
+    public void cacheTodo(Todo todo) {
+        l1.cacheTodo(todo);
+        onL2(() -> l2.cacheTodo(todo));
+    }
+
+    @Override
+    public Optional<Todo> getCachedTodo(Long id) {
+        Optional<Todo> cached = l1.getCachedTodo(id);
+        if (cached.isPresent()) return cached;
+
+        cached = fromL2(() -> l2.getCachedTodo(id));
+        cached.ifPresent(l1::cacheTodo);
+        return cached;
+    }
+
+    @Override
+    public void removeFromCache(Long id) {
+        l1.removeFromCache(id);
+        onL2(() -> l2.removeFromCache(id));
+    }
+
+    @Override
+    public void removeFromCache(Collection<Long> ids) {
+        l1.removeFromCache(ids);
+        onL2(() -> l2.removeFromCache(ids));
+    }
+
+    @Override
+    public void clearCache() {
+        l1.clearCache();
+        onL2(l2::clearCache);
+    }
+
+    @Override
+    public void clearUserCache(Long userId) {
+        l1.clearUserCache(userId);
+        onL2(() -> l2.clearUserCache(userId));
+    }
+
+    // stats of the front level, the one the client talks to first
+    @Override
+    public CacheStats getCacheStats() {
+        return l1.getCacheStats();
+    }
+
+    @Override
+    public void recordLoadTime(Region region, long nanos) {
+        l1.recordLoadTime(region, nanos);
+    }
+
+    @Override
+    public Optional<TodoStore> getTodoStore() {
+        return l1.getTodoStore();
+    }
+
+    // L2 entries are only read through L1, so only what L1 drops is reported
+    @Override
+    public void setEventBus(TodoEventBus events) {
+        l1.setEventBus(events);
+    }
+
+    public CacheManager getL1() { return l1; }
+
+    public CacheManager getL2() { return l2; }
+
+    // helpers
+    private void onL2(Runnable action) {
+        try {
+            action.run();
+        } catch (RuntimeException e) {
+            System.err.println("L2 cache write failed: " + e.getMessage());
+        }
+    }
+
+    private <T> Optional<T> fromL2(Supplier<Optional<T>> read) {
+        try {
+            return read.get();
+        } catch (RuntimeException e) {
+            System.err.println("L2 cache read failed: " + e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,465 @@
+package com.example.client.impl;
+
+import com.example.model.Todo;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonSerializationContext;
+import com.google.gson.JsonSerializer;
+import com.google.gson.annotations.JsonAdapter;
+
+import java.lang.reflect.Type;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/*
+    Columnar store of todos for caches of millions of them: ids, user ids and cache times in long[]
+    columns, completion in a BitSet and titles as UTF-8 bytes in one arena, indexed by a primitive
+    id -> row map. A todo costs ~60 bytes plus its title instead of five objects and a map entry.
+    Reads hand out flyweight views over a row. Rows are written once: an update appends a new row
+    and retires the old one, and a full table is rebuilt into fresh columns without the retired rows,
+    so a view handed out earlier never changes under its holder
+ */
+public class TodoTable {
+    private static final long NO_USER = Long.MIN_VALUE;
+    private static final int MIN_ROWS = 64;
+    private static final int MIN_ARENA = 4096;
+
+    private Columns columns = new Columns(MIN_ROWS, MIN_ARENA);
+    private final LongIntMap rowById = new LongIntMap();
+    private long rebuildCount = 0;
+
+    // helpers are guarded by this, views read their columns without locking
+    private static final class Columns {
+        private final long[] ids;
+        private final long[] userIds;
+        private final long[] cachedAt;
+        // allocated at full size so a bit already set is never copied around
+        private final BitSet completed;
+        private final BitSet completionUnknown;
+        private final int[] titleOffsets;
+        // -1 for a null title
+        private final int[] titleLengths;
+        private final byte[] arena;
+        private int rowCount = 0;
+        private int arenaSize = 0;
+
+        private Columns(int rows, int arenaBytes) {
+            this.ids = new long[rows];
+            this.userIds = new long[rows];
+            this.cachedAt = new long[rows];
+            this.completed = new BitSet(rows);
+            this.completionUnknown = new BitSet(rows);
+            this.titleOffsets = new int[rows];
+            this.titleLengths = new int[rows];
+            this.arena = new byte[arenaBytes];
+        }
+
+        private String title(int row) {
+            int length = titleLengths[row];
+            return length < 0 ? null : new String(arena, titleOffsets[row], length, StandardCharsets.UTF_8);
+        }
+
+        private boolean titleEquals(int row, byte[] title) {
+            int length = titleLengths[row];
+            if (title == null || length < 0) return title == null && length < 0;
+
+            int offset = titleOffsets[row];
+            return Arrays.equals(arena, offset, offset + length, title, 0, title.length);
+        }
+
+        private long bytes() {
+            return ids.length * 32L + ids.length / 4 + arena.length + 64;
+        }
+    }
+
+    public synchronized void put(Todo todo, long cachedAt) {
+        if (todo == null || todo.getId() == null) return;
+
+        byte[] title = todo.getTitle() != null ? todo.getTitle().getBytes(StandardCharsets.UTF_8) : null;
+        ensureCapacity(title != null ? title.length : 0);
+
+        Columns c = columns;
+        long id = todo.getId();
+        int previous = rowById.get(id);
+        int row = c.rowCount++;
+
+        c.ids[row] = id;
+        c.userIds[row] = todo.getUserId() != null ? todo.getUserId() : NO_USER;
+        c.cachedAt[row] = cachedAt;
+        if (todo.getCompleted() == null)
+            c.completionUnknown.set(row);
+        else if (todo.getCompleted())
+            c.completed.set(row);
+
+        if (previous >= 0 && c.titleEquals(previous, title)) {
+            // same title (e.g. only the flag flipped), share the bytes of the retired row
+            c.titleOffsets[row] = c.titleOffsets[previous];
+            c.titleLengths[row] = c.titleLengths[previous];
+        } else if (title == null) {
+            c.titleLengths[row] = -1;
+        } else {
+            System.arraycopy(title, 0, c.arena, c.arenaSize, title.length);
+            c.titleOffsets[row] = c.arenaSize;
+            c.titleLengths[row] = title.length;
+            c.arenaSize += title.length;
+        }
+
+        rowById.put(id, row);
+    }
+
+    public synchronized boolean remove(long id) {
+        return rowById.remove(id) >= 0;
+    }
+
+    public synchronized void clear() {
+        columns = new Columns(MIN_ROWS, MIN_ARENA);
+        rowById.clear();
+    }
+
+    // view of the todo, null if it is not in the table
+    public synchronized Todo get(long id) {
+        int row = rowById.get(id);
+        return row >= 0 ? new View(columns, row) : null;
+    }
+
+    // -1 if the todo is not in the table
+    public synchronized long getCachedAt(long id) {
+        int row = rowById.get(id);
+        return row >= 0 ? columns.cachedAt[row] : -1;
+    }
+
+    public synchronized boolean contains(long id) {
+        return rowById.get(id) >= 0;
+    }
+
+    public synchronized long[] idsCachedBefore(long timestamp) {
+        long[] result = new long[16];
+        int count = 0;
+        for (int slot = 0; slot < rowById.keys.length; slot++) {
+            int row = rowById.rowAt(slot);
+            if (row < 0 || columns.cachedAt[row] >= timestamp) continue;
+
+            if (count == result.length)
+                result = Arrays.copyOf(result, count * 2);
+            result[count++] = columns.ids[row];
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    // views of the listed todos in order, null if any of them is gone
+    public synchronized List<Todo> resolve(IdList list) {
+        List<Todo> result = new ArrayList<>(list.ids.length);
+        for (long id : list.ids) {
+            int row = rowById.get(id);
+            if (row < 0) return null;
+
+            result.add(new View(columns, row));
+        }
+        return result;
+    }
+
+    public synchronized int size() {
+        return rowById.size();
+    }
+
+    // columns, arena and index, including the space kept for growth
+    public synchronized long getMemoryBytes() {
+        return columns.bytes() + rowById.keys.length * 12L;
+    }
+
+    public synchronized long getRebuildCount() { return rebuildCount; }
+
+    // estimated share of one todo, for cache weights
+    public static long estimateRowSize(Todo todo) {
+        long size = 32 + 24; // columns + index at half load
+        if (todo != null && todo.getTitle() != null)
+            size += todo.getTitle().length();
+        return size;
+    }
+
+    // helpers
+
+    private void ensureCapacity(int titleBytes) {
+        Columns c = columns;
+        if (c.rowCount < c.ids.length && c.arenaSize + titleBytes <= c.arena.length) return;
+
+        // only live rows move, room for as many again
+        int live = rowById.size();
+        long liveBytes = titleBytes;
+        for (int slot = 0; slot < rowById.keys.length; slot++) {
+            int row = rowById.rowAt(slot);
+            if (row >= 0 && c.titleLengths[row] > 0) liveBytes += c.titleLengths[row];
+        }
+
+        Columns rebuilt = new Columns(Math.max(MIN_ROWS, (live + 1) * 2),
+                (int) Math.min(Integer.MAX_VALUE - 8, Math.max(MIN_ARENA, liveBytes * 2)));
+        for (int slot = 0; slot < rowById.keys.length; slot++) {
+            int row = rowById.rowAt(slot);
+            if (row < 0) continue;
+
+            int copy = rebuilt.rowCount++;
+            rebuilt.ids[copy] = c.ids[row];
+            rebuilt.userIds[copy] = c.userIds[row];
+            rebuilt.cachedAt[copy] = c.cachedAt[row];
+            if (c.completed.get(row)) rebuilt.completed.set(copy);
+            if (c.completionUnknown.get(row)) rebuilt.completionUnknown.set(copy);
+
+            int length = c.titleLengths[row];
+            rebuilt.titleLengths[copy] = length;
+            if (length > 0) {
+                System.arraycopy(c.arena, c.titleOffsets[row], rebuilt.arena, rebuilt.arenaSize, length);
+                rebuilt.titleOffsets[copy] = rebuilt.arenaSize;
+                rebuilt.arenaSize += length;
+            }
+            rowById.setRowAt(slot, copy);
+        }
+
+        columns = rebuilt;
+        rebuildCount++;
+    }
+
+    // ids of a cached list, the todos themselves live in the table
+    public static final class IdList extends AbstractList<Todo> {
+        private final TodoTable table;
+        private final long[] ids;
+
+        public IdList(TodoTable table, List<Todo> todos) {
+            this.table = table;
+            this.ids = todos.stream()
+                    .filter(t -> t != null && t.getId() != null)
+                    .mapToLong(Todo::getId)
+                    .toArray();
+        }
+
+        private IdList(TodoTable table, long[] ids) {
+            this.table = table;
+            this.ids = ids;
+        }
+
+        // list without the todo, or this list if it isn't there
+        public IdList without(long id) {
+            int index = indexOf(id);
+            if (index < 0) return this;
+
+            long[] remaining = new long[ids.length - 1];
+            System.arraycopy(ids, 0, remaining, 0, index);
+            System.arraycopy(ids, index + 1, remaining, index, remaining.length - index);
+            return new IdList(table, remaining);
+        }
+
+        public List<Todo> resolve() {
+            return table.resolve(this);
+        }
+
+        @Override
+        public Todo get(int index) {
+            return table.get(ids[index]);
+        }
+
+        @Override
+        public int size() {
+            return ids.length;
+        }
+
+        private int indexOf(long id) {
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] == id) return i;
+            }
+            return -1;
+        }
+    }
+
+    // read-only window over one row, a setter copies the row into the todo's own fields first
+    @JsonAdapter(ViewSerializer.class)
+    public static final class View extends Todo {
+        private Columns columns;
+        private final int row;
+        // decoded on first use
+        private String title;
+
+        private View(Columns columns, int row) {
+            this.columns = columns;
+            this.row = row;
+        }
+
+        @Override
+        public Long getId() {
+            Columns c = columns;
+            return c != null ? c.ids[row] : super.getId();
+        }
+
+        @Override
+        public Long getUserId() {
+            Columns c = columns;
+            if (c == null) return super.getUserId();
+
+            long userId = c.userIds[row];
+            return userId != NO_USER ? userId : null;
+        }
+
+        @Override
+        public String getTitle() {
+            Columns c = columns;
+            if (c == null) return super.getTitle();
+
+            String decoded = title;
+            if (decoded == null && c.titleLengths[row] >= 0)
+                title = decoded = c.title(row);
+            return decoded;
+        }
+
+        @Override
+        public Boolean getCompleted() {
+            Columns c = columns;
+            if (c == null) return super.getCompleted();
+
+            return c.completionUnknown.get(row) ? null : c.completed.get(row);
+        }
+
+        @Override
+        public void setId(Long id) {
+            checkNotFrozen();
+            detach();
+            super.setId(id);
+        }
+
+        @Override
+        public void setUserId(Long userId) {
+            checkNotFrozen();
+            detach();
+            super.setUserId(userId);
+        }
+
+        @Override
+        public void setTitle(String title) {
+            checkNotFrozen();
+            detach();
+            super.setTitle(title);
+        }
+
+        @Override
+        public void setCompleted(Boolean completed) {
+            checkNotFrozen();
+            detach();
+            super.setCompleted(completed);
+        }
+
+        // true once a setter copied the row out
+        public boolean isDetached() {
+            return columns == null;
+        }
+
+        private void detach() {
+            if (columns == null) return;
+
+            Long id = getId();
+            Long userId = getUserId();
+            String title = getTitle();
+            Boolean completed = getCompleted();
+            columns = null;
+
+            super.setId(id);
+            super.setUserId(userId);
+            super.setTitle(title);
+            super.setCompleted(completed);
+        }
+    }
+
+    // views have no fields of their own worth writing, they go out as plain todos
+    static final class ViewSerializer implements JsonSerializer<View> {
+        @Override
+        public JsonElement serialize(View view, Type type, JsonSerializationContext context) {
+            return context.serialize(
+                    new Todo(view.getId(), view.getUserId(), view.getTitle(), view.getCompleted()), Todo.class);
+        }
+    }
+
+    // open addressing long -> row map, no boxing; slots hold row + 1, 0 is empty
+    private static final class LongIntMap {
+        private long[] keys = new long[64];
+        private int[] rows = new int[64];
+        private int size = 0;
+
+        private int get(long key) {
+            int mask = keys.length - 1;
+            for (int slot = hash(key) & mask; rows[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) return rows[slot] - 1;
+            }
+            return -1;
+        }
+
+        private void put(long key, int row) {
+            if ((size + 1) * 2 > keys.length)
+                resize(keys.length * 2);
+
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            for (; rows[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    rows[slot] = row + 1;
+                    return;
+                }
+            }
+            keys[slot] = key;
+            rows[slot] = row + 1;
+            size++;
+        }
+
+        // row that was mapped, -1 if none; later entries of the probe run shift back into the hole
+        private int remove(long key) {
+            int mask = keys.length - 1;
+            int slot = hash(key) & mask;
+            while (rows[slot] != 0 && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+            if (rows[slot] == 0) return -1;
+
+            int removed = rows[slot] - 1;
+            int hole = slot;
+            for (int next = (hole + 1) & mask; rows[next] != 0; next = (next + 1) & mask) {
+                int home = hash(keys[next]) & mask;
+                // move the entry if the hole lies on its probe path from home
+                if (((next - home) & mask) >= ((next - hole) & mask)) {
+                    keys[hole] = keys[next];
+                    rows[hole] = rows[next];
+                    hole = next;
+                }
+            }
+            rows[hole] = 0;
+            size--;
+            return removed;
+        }
+
+        private void clear() {
+            keys = new long[64];
+            rows = new int[64];
+            size = 0;
+        }
+
+        private int size() { return size; }
+
+        private int rowAt(int slot) { return rows[slot] - 1; }
+
+        private void setRowAt(int slot, int row) { rows[slot] = row + 1; }
+
+        private void resize(int capacity) {
+            long[] oldKeys = keys;
+            int[] oldRows = rows;
+            keys = new long[capacity];
+            rows = new int[capacity];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldRows[i] != 0) put(oldKeys[i], oldRows[i] - 1);
+            }
+        }
+
+        // like HashMap: ids are mostly sequential, neighbours stay in neighbouring slots
+        private static int hash(long key) {
+            int h = (int) (key ^ (key >>> 32));
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.example.client.impl;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+    W-TinyLFU: new keys land in a small LRU window (~1% of capacity), keys leaving the window
+    join the probation segment of the main area and have to beat its LRU victim by frequency
+    to stay. Keys hit again while on probation are promoted to the protected segment (80% of main)
+ */
+public class WindowTinyLfuEvictionPolicy<K> implements EvictionPolicy<K> {
+    private final FrequencySketch sketch;
+    private final int windowMax;
+    private final int protectedMax;
+
+    // all access-ordered, eldest entry first
+    private final LinkedHashMap<K, Boolean> window = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Boolean> probation = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<K, Boolean> protectedSegment = new LinkedHashMap<>(16, 0.75f, true);
+
+    public WindowTinyLfuEvictionPolicy(int expectedSize) {
+        if (expectedSize <= 0)
+            throw new IllegalArgumentException("Expected size must be positive: " + expectedSize);
+
+        this.sketch = new FrequencySketch(expectedSize);
+        this.windowMax = Math.max(1, expectedSize / 100);
+        this.protectedMax = Math.max(1, (expectedSize - windowMax) * 80 / 100);
+    }
+
+    @Override
+    public void recordInsert(K key) {
+        if (contains(key)) {
+            recordAccess(key);
+            return;
+        }
+
+        sketch.increment(key);
+        window.put(key, Boolean.TRUE);
+
+        if (window.size() > windowMax) {
+            // the window victim becomes the admission candidate
+            K candidate = eldest(window);
+            window.remove(candidate);
+            probation.put(candidate, Boolean.TRUE);
+        }
+    }
+
+    @Override
+    public void recordAccess(K key) {
+        sketch.increment(key);
+
+        if (window.containsKey(key)) {
+            window.get(key);
+        } else if (probation.remove(key) != null) {
+            protectedSegment.put(key, Boolean.TRUE);
+
+            if (protectedSegment.size() > protectedMax) {
+                K demoted = eldest(protectedSegment);
+                protectedSegment.remove(demoted);
+                probation.put(demoted, Boolean.TRUE);
+            }
+        } else if (protectedSegment.containsKey(key)) {
+            protectedSegment.get(key);
+        }
+    }
+
+    @Override
+    public void recordRemoval(K key) {
+        if (window.remove(key) == null && probation.remove(key) == null)
+            protectedSegment.remove(key);
+    }
+
+    @Override
+    public K selectVictim() {
+        if (probation.size() >= 2) {
+            // newest probation key (the latest window victim) competes with the LRU one
+            K victim = eldest(probation);
+            K candidate = probation.sequencedKeySet().getLast();
+
+            return sketch.frequency(candidate) > sketch.frequency(victim) ? victim : candidate;
+        }
+
+        if (!probation.isEmpty())
+            return eldest(probation);
+        if (!protectedSegment.isEmpty())
+            return eldest(protectedSegment);
+
+        return eldest(window);
+    }
+
+    @Override
+    public int size() {
+        return window.size() + probation.size() + protectedSegment.size();
+    }
+
+    @Override
+    public void clear() {
+        window.clear();
+        probation.clear();
+        protectedSegment.clear();
+        sketch.clear();
+    }
+
+    // helpers
+    private boolean contains(K key) {
+        return window.containsKey(key) || probation.containsKey(key) || protectedSegment.containsKey(key);
+    }
+
+    private static <K> K eldest(Map<K, Boolean> segment) {
+        Iterator<K> it = segment.keySet().iterator();
+        return it.hasNext() ? it.next() : null;
+    }
+}
@@ -0,0 +1,451 @@
+package com.example.client.json;
+
+import com.google.gson.stream.MalformedJsonException;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/*
+    Pull parser over UTF-8 JSON bytes, enough for the API's payloads: objects, arrays, strings,
+    integers, booleans and null; anything else can be skipped. Reads a byte[] in place or streams
+    an InputStream through a fixed buffer, only strings are decoded to chars. Field names are
+    matched against known names as bytes, so reading an object allocates nothing for its keys.
+    Errors are reported like Gson's JsonReader does, as MalformedJsonException
+ */
+public final class JsonByteReader implements Closeable {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final InputStream in;
+    private byte[] buf;
+    private int pos;
+    private int limit;
+    private long consumedBefore = 0;
+
+    // per open container: was a value read in it, so the next one needs a comma
+    private boolean[] needsComma = new boolean[32];
+    private int depth = 0;
+    // the separator before the next value has been consumed already
+    private boolean pendingValue = false;
+    private boolean afterName = false;
+
+    // strings that cross buffer refills or have escapes are assembled here
+    private byte[] scratch = new byte[128];
+
+    public JsonByteReader(byte[] bytes) {
+        this(bytes, 0, bytes.length);
+    }
+
+    public JsonByteReader(byte[] bytes, int offset, int length) {
+        this.in = null;
+        this.buf = bytes;
+        this.pos = offset;
+        this.limit = offset + length;
+    }
+
+    public JsonByteReader(InputStream in) {
+        this.in = in;
+        this.buf = new byte[BUFFER_SIZE];
+    }
+
+    // names to match in nextName(), prepared once per adapter
+    public static byte[][] names(String... names) {
+        byte[][] result = new byte[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            result[i] = names[i].getBytes(StandardCharsets.UTF_8);
+        }
+        return result;
+    }
+
+    public void beginArray() throws IOException {
+        takeValue();
+        expect('[');
+        push();
+    }
+
+    public void endArray() throws IOException {
+        expect(']');
+        depth--;
+    }
+
+    public void beginObject() throws IOException {
+        takeValue();
+        expect('{');
+        push();
+    }
+
+    public void endObject() throws IOException {
+        expect('}');
+        depth--;
+    }
+
+    // true if the current array or object has another element
+    public boolean hasNext() throws IOException {
+        if (pendingValue) return true;
+
+        int c = peekNonWhitespace();
+        if (c == -1) return false;
+        return depth > 0 && needsComma[depth] ? c == ',' : c != ']' && c != '}';
+    }
+
+    // index of the field name in `known`, -1 for any other name (its value should be skipped)
+    public int nextName(byte[][] known) throws IOException {
+        takeValue();
+        expect('"');
+
+        int start = pos;
+        int end = scanPlainString();
+        int match = -1;
+        if (end >= 0) {
+            match = indexOf(known, buf, start, end - start);
+            pos = end + 1;
+        } else {
+            int length = readString();
+            match = indexOf(known, scratch, 0, length);
+        }
+
+        expect(':');
+        afterName = true;
+        return match;
+    }
+
+    // null for a JSON null
+    public String nextString() throws IOException {
+        int c = takeValue();
+        if (c == 'n') {
+            literal("null");
+            return null;
+        }
+        if (c != '"') {
+            // numbers and booleans are read as their text, like Gson does
+            return new String(scratch, 0, readScalar(), StandardCharsets.UTF_8);
+        }
+
+        pos++;
+        int start = pos;
+        int end = scanPlainString();
+        if (end >= 0) {
+            pos = end + 1;
+            return new String(buf, start, end - start, StandardCharsets.UTF_8);
+        }
+
+        return new String(scratch, 0, readString(), StandardCharsets.UTF_8);
+    }
+
+    // integers, quoted integers and (truncated) decimals
+    public long nextLong() throws IOException {
+        int c = takeValue();
+        if (c == '"') {
+            String text = nextQuoted();
+            try {
+                return Long.parseLong(text.trim());
+            } catch (NumberFormatException e) {
+                throw syntaxError("Expected a number but was \"" + text + "\"");
+            }
+        }
+
+        boolean negative = c == '-';
+        if (negative) pos++;
+
+        long value = 0;
+        int digits = 0;
+        for (int b = peekByte(); b >= '0' && b <= '9'; b = peekByte()) {
+            int digit = b - '0';
+            if (value > (Long.MAX_VALUE - digit) / 10)
+                throw syntaxError("Number is out of the long range");
+            value = value * 10 + digit;
+            digits++;
+            pos++;
+        }
+        if (digits == 0)
+            throw syntaxError("Expected a number");
+
+        int b = peekByte();
+        if (b == '.' || b == 'e' || b == 'E') {
+            // rare, parse the whole literal
+            int length = readScalar();
+            String text = (negative ? "-" : "") + value + new String(scratch, 0, length, StandardCharsets.US_ASCII);
+            return (long) Double.parseDouble(text);
+        }
+
+        return negative ? -value : value;
+    }
+
+    public boolean nextBoolean() throws IOException {
+        int c = takeValue();
+        if (c == 't') {
+            literal("true");
+            return true;
+        }
+        if (c == 'f') {
+            literal("false");
+            return false;
+        }
+        if (c == '"')
+            return Boolean.parseBoolean(nextQuoted());
+
+        throw syntaxError("Expected a boolean");
+    }
+
+    // consumes a null if one is next
+    public boolean nextNull() throws IOException {
+        if (peekValue() != 'n') return false;
+
+        pendingValue = false;
+        literal("null");
+        return true;
+    }
+
+    public void skipValue() throws IOException {
+        int c = takeValue();
+        if (c == '"') {
+            pos++;
+            skipString();
+        } else if (c == '{' || c == '[') {
+            skipContainer();
+        } else {
+            readScalar();
+        }
+    }
+
+    // bytes read so far, for error messages
+    public long position() {
+        return consumedBefore + pos;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (in != null) in.close();
+    }
+
+    // helpers
+
+    private int peekValue() throws IOException {
+        if (!pendingValue) {
+            if (afterName) {
+                afterName = false;
+            } else if (depth > 0) {
+                if (needsComma[depth])
+                    expect(',');
+                else
+                    needsComma[depth] = true;
+            }
+            pendingValue = true;
+        }
+
+        int c = peekNonWhitespace();
+        if (c == -1)
+            throw syntaxError("Unexpected end of input");
+        return c;
+    }
+
+    private int takeValue() throws IOException {
+        int c = peekValue();
+        pendingValue = false;
+        return c;
+    }
+
+    private void push() {
+        if (++depth == needsComma.length)
+            needsComma = Arrays.copyOf(needsComma, depth * 2);
+        needsComma[depth] = false;
+    }
+
+    private int peekByte() throws IOException {
+        if (pos == limit && !fill()) return -1;
+        return buf[pos] & 0xFF;
+    }
+
+    private int peekNonWhitespace() throws IOException {
+        for (int c = peekByte(); c != -1; c = peekByte()) {
+            if (c != ' ' && c != '\n' && c != '\r' && c != '\t') return c;
+            pos++;
+        }
+        return -1;
+    }
+
+    private void expect(char expected) throws IOException {
+        int c = peekNonWhitespace();
+        if (c != expected)
+            throw syntaxError("Expected '" + expected + "' but was " + describe(c));
+        pos++;
+    }
+
+    private void literal(String word) throws IOException {
+        for (int i = 0; i < word.length(); i++) {
+            if (peekByte() != word.charAt(i))
+                throw syntaxError("Expected " + word);
+            pos++;
+        }
+    }
+
+    // end of a string without escapes that is whole in the buffer, -1 otherwise
+    private int scanPlainString() {
+        for (int i = pos; i < limit; i++) {
+            byte b = buf[i];
+            if (b == '"') return i;
+            if (b == '\\') return -1;
+        }
+        return -1;
+    }
+
+    // reads the rest of a string (after the opening quote) into scratch, returns its length
+    private int readString() throws IOException {
+        int length = 0;
+        while (true) {
+            int b = peekByte();
+            if (b == -1)
+                throw syntaxError("Unterminated string");
+            pos++;
+
+            if (b == '"') return length;
+            if (b != '\\') {
+                length = append(length, b);
+                continue;
+            }
+
+            int escaped = peekByte();
+            pos++;
+            switch (escaped) {
+                case '"', '\\', '/' -> length = append(length, escaped);
+                case 'b' -> length = append(length, '\b');
+                case 'f' -> length = append(length, '\f');
+                case 'n' -> length = append(length, '\n');
+                case 'r' -> length = append(length, '\r');
+                case 't' -> length = append(length, '\t');
+                case 'u' -> length = appendCodePoint(length, readEscapedChar());
+                default -> throw syntaxError("Invalid escape " + describe(escaped));
+            }
+        }
+    }
+
+    private int readEscapedChar() throws IOException {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            int digit = Character.digit(peekByte(), 16);
+            if (digit < 0)
+                throw syntaxError("Invalid \\u escape");
+            value = value * 16 + digit;
+            pos++;
+        }
+
+        // a surrogate pair comes as two escapes
+        if (Character.isHighSurrogate((char) value) && peekByte() == '\\') {
+            pos++;
+            if (peekByte() != 'u')
+                throw syntaxError("Expected a low surrogate");
+            pos++;
+            int low = 0;
+            for (int i = 0; i < 4; i++) {
+                int digit = Character.digit(peekByte(), 16);
+                if (digit < 0)
+                    throw syntaxError("Invalid \\u escape");
+                low = low * 16 + digit;
+                pos++;
+            }
+            return Character.toCodePoint((char) value, (char) low);
+        }
+        return value;
+    }
+
+    private int appendCodePoint(int length, int codePoint) {
+        if (codePoint < 0x80)
+            return append(length, codePoint);
+        if (codePoint < 0x800) {
+            length = append(length, 0xC0 | codePoint >> 6);
+            return append(length, 0x80 | codePoint & 0x3F);
+        }
+        if (codePoint < 0x10000) {
+            length = append(length, 0xE0 | codePoint >> 12);
+            length = append(length, 0x80 | codePoint >> 6 & 0x3F);
+            return append(length, 0x80 | codePoint & 0x3F);
+        }
+        length = append(length, 0xF0 | codePoint >> 18);
+        length = append(length, 0x80 | codePoint >> 12 & 0x3F);
+        length = append(length, 0x80 | codePoint >> 6 & 0x3F);
+        return append(length, 0x80 | codePoint & 0x3F);
+    }
+
+    private int append(int length, int b) {
+        if (length == scratch.length)
+            scratch = Arrays.copyOf(scratch, length * 2);
+        scratch[length] = (byte) b;
+        return length + 1;
+    }
+
+    private String nextQuoted() throws IOException {
+        pos++;
+        return new String(scratch, 0, readString(), StandardCharsets.UTF_8);
+    }
+
+    private void skipString() throws IOException {
+        while (true) {
+            int b = peekByte();
+            if (b == -1)
+                throw syntaxError("Unterminated string");
+            pos++;
+
+            if (b == '"') return;
+            if (b == '\\' && peekByte() != -1) pos++;
+        }
+    }
+
+    private void skipContainer() throws IOException {
+        int nesting = 0;
+        do {
+            int b = peekByte();
+            if (b == -1)
+                throw syntaxError("Unterminated " + (nesting > 0 ? "object or array" : "value"));
+            pos++;
+
+            if (b == '"') skipString();
+            else if (b == '{' || b == '[') nesting++;
+            else if (b == '}' || b == ']') nesting--;
+        } while (nesting > 0);
+    }
+
+    // number or literal up to the next delimiter, into scratch
+    private int readScalar() throws IOException {
+        int length = 0;
+        for (int b = peekByte(); b != -1; b = peekByte()) {
+            if (b == ',' || b == '}' || b == ']' || b == ' ' || b == '\n' || b == '\r' || b == '\t') break;
+            length = append(length, b);
+            pos++;
+        }
+        if (length == 0)
+            throw syntaxError("Expected a value");
+        return length;
+    }
+
+    private boolean fill() throws IOException {
+        if (in == null) return false;
+
+        consumedBefore += limit;
+        pos = 0;
+        limit = 0;
+        int read = in.read(buf, 0, buf.length);
+        if (read <= 0) return false;
+
+        limit = read;
+        return true;
+    }
+
+    private static int indexOf(byte[][] known, byte[] bytes, int offset, int length) {
+        for (int i = 0; i < known.length; i++) {
+            byte[] name = known[i];
+            if (name.length == length && Arrays.equals(name, 0, length, bytes, offset, offset + length))
+                return i;
+        }
+        return -1;
+    }
+
+    private static String describe(int c) {
+        return c == -1 ? "end of input" : "'" + (char) c + "'";
+    }
+
+    private MalformedJsonException syntaxError(String message) {
+        return new MalformedJsonException(message + " at byte " + position());
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.client.json;
+
+import com.example.model.Todo;
+import com.example.model.User;
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.reflect.TypeToken;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    JSON of the API models in one place: a Gson with the hand-written adapters and compact output,
+    for strings and streams of chars, and readers straight from UTF-8 bytes for response bodies.
+    Malformed input fails with JsonSyntaxException either way
+ */
+public final class JsonCodec {
+    public static final Type TODO_LIST = new TypeToken<List<Todo>>(){}.getType();
+    public static final Type USER_LIST = new TypeToken<List<User>>(){}.getType();
+
+    // hierarchy adapter, so subclasses of Todo (TodoTable views) are written the same way
+    public static final Gson GSON = new GsonBuilder()
+            .registerTypeHierarchyAdapter(Todo.class, new TodoAdapter())
+            .registerTypeAdapter(User.class, new UserAdapter())
+            .create();
+
+    private JsonCodec() {}
+
+    public static String toJson(Object value) {
+        return GSON.toJson(value);
+    }
+
+    public static Todo readTodo(byte[] json) {
+        try {
+            return TodoAdapter.read(new JsonByteReader(json));
+        } catch (IOException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    // empty list for a JSON null
+    public static List<Todo> readTodos(byte[] json) {
+        try {
+            return readTodos(new JsonByteReader(json));
+        } catch (IOException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    public static List<Todo> readTodos(JsonByteReader in) throws IOException {
+        List<Todo> todos = new ArrayList<>();
+        if (in.nextNull()) return todos;
+
+        in.beginArray();
+        while (in.hasNext()) {
+            todos.add(TodoAdapter.read(in));
+        }
+        in.endArray();
+        return todos;
+    }
+
+    public static User readUser(byte[] json) {
+        try {
+            return UserAdapter.read(new JsonByteReader(json));
+        } catch (IOException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    public static List<User> readUsers(byte[] json) {
+        try {
+            JsonByteReader in = new JsonByteReader(json);
+            List<User> users = new ArrayList<>();
+            if (in.nextNull()) return users;
+
+            in.beginArray();
+            while (in.hasNext()) {
+                users.add(UserAdapter.read(in));
+            }
+            in.endArray();
+            return users;
+        } catch (IOException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.client.json;
+
+import com.example.model.Todo;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/*
+    Hand-written binding of Todo, no reflection. Writes through the getters (so TodoTable views
+    work too) in the field order Gson used, nulls are left out. Unknown fields are skipped
+ */
+public class TodoAdapter extends TypeAdapter<Todo> {
+    private static final byte[][] FIELDS = JsonByteReader.names("id", "userId", "title", "completed");
+
+    @Override
+    public void write(JsonWriter out, Todo todo) throws IOException {
+        if (todo == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        Long id = todo.getId();
+        if (id != null) out.name("id").value(id.longValue());
+        Long userId = todo.getUserId();
+        if (userId != null) out.name("userId").value(userId.longValue());
+        String title = todo.getTitle();
+        if (title != null) out.name("title").value(title);
+        Boolean completed = todo.getCompleted();
+        if (completed != null) out.name("completed").value(completed.booleanValue());
+        out.endObject();
+    }
+
+    @Override
+    public Todo read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        Todo todo = new Todo();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+
+            switch (name) {
+                case "id" -> todo.setId(in.nextLong());
+                case "userId" -> todo.setUserId(in.nextLong());
+                case "title" -> todo.setTitle(in.nextString());
+                case "completed" -> todo.setCompleted(in.nextBoolean());
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return todo;
+    }
+
+    public static Todo read(JsonByteReader in) throws IOException {
+        if (in.nextNull()) return null;
+
+        Todo todo = new Todo();
+        in.beginObject();
+        while (in.hasNext()) {
+            int field = in.nextName(FIELDS);
+            if (in.nextNull()) continue;
+
+            switch (field) {
+                case 0 -> todo.setId(in.nextLong());
+                case 1 -> todo.setUserId(in.nextLong());
+                case 2 -> todo.setTitle(in.nextString());
+                case 3 -> todo.setCompleted(in.nextBoolean());
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return todo;
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.client.json;
+
+import com.example.model.User;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+import java.io.IOException;
+
+/*
+    Hand-written binding of User. The API also sends address, phone, website and company,
+    the model has no place for them so they are skipped without being parsed
+ */
+public class UserAdapter extends TypeAdapter<User> {
+    private static final byte[][] FIELDS = JsonByteReader.names("id", "name", "username", "email");
+
+    @Override
+    public void write(JsonWriter out, User user) throws IOException {
+        if (user == null) {
+            out.nullValue();
+            return;
+        }
+
+        out.beginObject();
+        if (user.getId() != null) out.name("id").value(user.getId().longValue());
+        if (user.getName() != null) out.name("name").value(user.getName());
+        if (user.getUsername() != null) out.name("username").value(user.getUsername());
+        if (user.getEmail() != null) out.name("email").value(user.getEmail());
+        out.endObject();
+    }
+
+    @Override
+    public User read(JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+
+        User user = new User();
+        in.beginObject();
+        while (in.hasNext()) {
+            String name = in.nextName();
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                continue;
+            }
+
+            switch (name) {
+                case "id" -> user.setId(in.nextLong());
+                case "name" -> user.setName(in.nextString());
+                case "username" -> user.setUsername(in.nextString());
+                case "email" -> user.setEmail(in.nextString());
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return user;
+    }
+
+    public static User read(JsonByteReader in) throws IOException {
+        if (in.nextNull()) return null;
+
+        User user = new User();
+        in.beginObject();
+        while (in.hasNext()) {
+            int field = in.nextName(FIELDS);
+            if (in.nextNull()) continue;
+
+            switch (field) {
+                case 0 -> user.setId(in.nextLong());
+                case 1 -> user.setName(in.nextString());
+                case 2 -> user.setUsername(in.nextString());
+                case 3 -> user.setEmail(in.nextString());
+                default -> in.skipValue();
+            }
+        }
+        in.endObject();
+        return user;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// per-item report of a bulk operation over todos
+public class BulkResult<T> {
+    private final List<ItemResult<T>> items;
+
+    public BulkResult(List<ItemResult<T>> items) {
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+    }
+
+    public List<ItemResult<T>> getItems() { return items; }
+
+    public int getTotalCount() { return items.size(); }
+
+    public int getSucceededCount() {
+        return (int) items.stream().filter(ItemResult::isSucceeded).count();
+    }
+
+    public int getFailedCount() {
+        return items.size() - getSucceededCount();
+    }
+
+    // items which needed more than one attempt (whether they succeeded in the end or not)
+    public int getRetriedCount() {
+        return (int) items.stream().filter(ItemResult::isRetried).count();
+    }
+
+    public List<ItemResult<T>> getFailures() {
+        return items.stream().filter(item -> !item.isSucceeded()).toList();
+    }
+
+    public boolean isAllSucceeded() {
+        return getFailedCount() == 0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("BulkResult{total=%d, succeeded=%d, failed=%d, retried=%d}",
+                getTotalCount(), getSucceededCount(), getFailedCount(), getRetriedCount());
+    }
+
+    // outcome for a single todo
+    public static class ItemResult<T> {
+        private final Long id;
+        private final T value;
+        private final ApiException error;
+        private final int attempts;
+
+        private ItemResult(Long id, T value, ApiException error, int attempts) {
+            this.id = id;
+            this.value = value;
+            this.error = error;
+            this.attempts = attempts;
+        }
+
+        public static <T> ItemResult<T> succeeded(Long id, T value, int attempts) {
+            return new ItemResult<>(id, value, null, attempts);
+        }
+
+        public static <T> ItemResult<T> failed(Long id, ApiException error, int attempts) {
+            return new ItemResult<>(id, null, error, attempts);
+        }
+
+        public Long getId() { return id; }
+
+        public T getValue() { return value; }
+
+        public ApiException getError() { return error; }
+
+        public int getAttempts() { return attempts; }
+
+        public boolean isSucceeded() { return error == null; }
+
+        public boolean isRetried() { return attempts > 1; }
+
+        @Override
+        public String toString() {
+            return "ItemResult{" +
+                    "id=" + id +
+                    ", succeeded=" + isSucceeded() +
+                    ", attempts=" + attempts +
+                    (error != null ? ", error='" + error.getMessage() + '\'' : "") +
+                    '}';
+        }
+    }
+}
@@ -2,11 +2,13 @@ package com.example.model;
 
 import com.google.gson.annotations.SerializedName;
 
+// frozen once it is shared (e.g. cached), setters fail from then on and edits go to a copy()
 public class Todo {
     private Long id;
     private Long userId;
     private String title;
     private Boolean completed;
+    private transient boolean frozen = false;
 
     public Todo() {} // for Gson
 
@@ -28,6 +30,7 @@ public class Todo {
     }
 
     public void setId(Long id) {
+        checkNotFrozen();
         this.id = id;
     }
 
@@ -36,6 +39,7 @@ public class Todo {
     }
 
     public void setUserId(Long userId) {
+        checkNotFrozen();
         this.userId = userId;
     }
 
@@ -44,6 +48,7 @@ public class Todo {
     }
 
     public void setTitle(String title) {
+        checkNotFrozen();
         this.title = title;
     }
 
@@ -52,34 +57,55 @@ public class Todo {
     }
 
     public void setCompleted(Boolean completed) {
+        checkNotFrozen();
         this.completed = completed;
     }
 
+    // makes the todo read-only, it can be shared without copying then
+    public Todo freeze() {
+        frozen = true;
+        return this;
+    }
+
+    public boolean isFrozen() { return frozen; }
+
+    // an editable todo with the same values
+    public Todo copy() {
+        return new Todo(getId(), getUserId(), getTitle(), getCompleted());
+    }
+
+    protected void checkNotFrozen() {
+        if (frozen)
+            throw new IllegalStateException("Todo " + getId() + " is shared and read-only, edit a copy()");
+    }
+
     // for UI
     public String getDisplayStatus() {
-        return completed ? "✓ Completed" : "○ Pending";
+        return getCompleted() ? "✓ Completed" : "○ Pending";
     }
 
+    // getters rather than fields, subclasses may keep the values elsewhere (see TodoTable.View)
     @Override
     public String toString() {
         return "Todo{" +
-                "id=" + id +
-                ", userId=" + userId +
-                ", title='" + title + '\'' +
-                ", completed=" + completed + "}";
+                "id=" + getId() +
+                ", userId=" + getUserId() +
+                ", title='" + getTitle() + '\'' +
+                ", completed=" + getCompleted() + "}";
     }
 
     @Override
     public boolean equals(Object o) {
         if (this == o) return true; // if it's the same object
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof Todo todo)) return false;
 
-        Todo todo = (Todo) o;
-        return id != null ? id.equals(todo.id) : todo.id == null;
+        Long id = getId();
+        return id != null ? id.equals(todo.getId()) : todo.getId() == null;
     }
 
     @Override
     public int hashCode() {
+        Long id = getId();
         return id != null ? id.hashCode() : 0;
     }
 }
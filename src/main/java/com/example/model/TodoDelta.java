@@ -0,0 +1,48 @@
+package com.example.model;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+
+// what changed in a todo list between two loads
+public class TodoDelta {
+    public static final TodoDelta EMPTY = new TodoDelta(List.of(), List.of(), List.of());
+
+    private final List<Todo> added;
+    private final List<Todo> updated;
+    private final List<Long> removedIds;
+
+    public TodoDelta(List<Todo> added, List<Todo> updated, List<Long> removedIds) {
+        this.added = Collections.unmodifiableList(added);
+        this.updated = Collections.unmodifiableList(updated);
+        this.removedIds = Collections.unmodifiableList(removedIds);
+    }
+
+    public List<Todo> getAdded() { return added; }
+
+    // new values of todos that were in the list already
+    public List<Todo> getUpdated() { return updated; }
+
+    public List<Long> getRemovedIds() { return removedIds; }
+
+    public int size() {
+        return added.size() + updated.size() + removedIds.size();
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    // equals() only compares ids, this compares what a user sees
+    public static boolean sameValues(Todo a, Todo b) {
+        return Objects.equals(a.getUserId(), b.getUserId())
+                && Objects.equals(a.getTitle(), b.getTitle())
+                && Objects.equals(a.getCompleted(), b.getCompleted());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("TodoDelta{added=%d, updated=%d, removed=%d}",
+                added.size(), updated.size(), removedIds.size());
+    }
+}
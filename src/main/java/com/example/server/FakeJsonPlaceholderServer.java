@@ -0,0 +1,418 @@
+package com.example.server;
+
+import com.example.client.json.JsonCodec;
+import com.example.model.Todo;
+import com.example.model.User;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.stream.JsonWriter;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    In-process stand-in for JSONPlaceholder: /todos and /users with the same semantics
+    (filters by userId/completed, ETag revalidation, writes are answered but not persisted).
+    The dataset is generated from the id on every request, so millions of todos cost no memory.
+    Latency and failures can be injected, every request runs on its own virtual thread
+ */
+public class FakeJsonPlaceholderServer {
+    private static final Gson GSON = JsonCodec.GSON;
+    private static final String[] WORDS = {
+            "delectus", "aut", "autem", "quis", "ut", "nam", "facilis", "et", "officia", "qui",
+            "fugiat", "veniam", "illo", "expedita", "sed", "repellendus", "laboriosam", "molestiae",
+            "voluptas", "dolorem", "ipsa", "suscipit", "enim", "tempora", "rerum", "doloribus"
+    };
+
+    private final long todoCount;
+    private final long userCount;
+    private final long todosPerUser;
+
+    private volatile long minLatencyMillis = 0;
+    private volatile long maxLatencyMillis = 0;
+    private volatile double errorRate = 0.0;
+    private volatile int errorStatus = 503;
+
+    private final LongAdder requestCount = new LongAdder();
+    private final LongAdder errorCount = new LongAdder();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    // same size as the real API
+    public FakeJsonPlaceholderServer() {
+        this(200, 10);
+    }
+
+    public FakeJsonPlaceholderServer(long todoCount, long userCount) {
+        if (todoCount < 0)
+            throw new IllegalArgumentException("Todo count cannot be negative: " + todoCount);
+        if (userCount <= 0)
+            throw new IllegalArgumentException("User count must be positive: " + userCount);
+
+        this.todoCount = todoCount;
+        this.userCount = userCount;
+        // like the real API, every user owns one contiguous block of ids
+        this.todosPerUser = Math.max(1, (todoCount + userCount - 1) / userCount);
+    }
+
+    // lifecycle
+
+    public String start() throws IOException {
+        return start(0);
+    }
+
+    // 0 picks a free port, returns the base url for AbstractHttpClient.setBaseUrl
+    public synchronized String start(int port) throws IOException {
+        if (server != null)
+            throw new IllegalStateException("Server is already running");
+
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        server.createContext("/todos", this::handle);
+        server.createContext("/users", this::handle);
+        server.setExecutor(executor);
+        server.start();
+
+        return getBaseUrl();
+    }
+
+    public synchronized void stop() {
+        if (server == null) return;
+
+        server.stop(0);
+        executor.shutdownNow();
+        server = null;
+        executor = null;
+    }
+
+    public synchronized String getBaseUrl() {
+        if (server == null)
+            throw new IllegalStateException("Server is not running");
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    // settings, can be changed while running
+
+    // every response is delayed by a random time in [min, max]
+    public void setLatency(long minMillis, long maxMillis) {
+        if (minMillis < 0 || maxMillis < minMillis)
+            throw new IllegalArgumentException("Invalid latency range: " + minMillis + ".." + maxMillis);
+
+        this.minLatencyMillis = minMillis;
+        this.maxLatencyMillis = maxMillis;
+    }
+
+    // share of requests (0..1) answered with the given status instead
+    public void setErrorRate(double rate, int status) {
+        if (rate < 0.0 || rate > 1.0)
+            throw new IllegalArgumentException("Error rate must be in [0, 1]: " + rate);
+        if (status < 400 || status > 599)
+            throw new IllegalArgumentException("Error status must be 4xx or 5xx: " + status);
+
+        this.errorRate = rate;
+        this.errorStatus = status;
+    }
+
+    public long getTodoCount() { return todoCount; }
+    public long getUserCount() { return userCount; }
+    public long getRequestCount() { return requestCount.sum(); }
+    public long getErrorCount() { return errorCount.sum(); }
+
+    // dataset
+
+    public Todo todo(long id) {
+        long hash = mix(id);
+        long userId = (id - 1) / todosPerUser + 1;
+        return new Todo(id, userId, title(hash), (hash & 0x3) == 0);
+    }
+
+    public User user(long id) {
+        return new User(id, "User " + id, "user" + id, "user" + id + "@example.com");
+    }
+
+    // handlers
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.increment();
+
+        try {
+            delay();
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                errorCount.increment();
+                sendJson(exchange, errorStatus, "{\"message\":\"Injected failure\"}");
+                return;
+            }
+
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            String method = exchange.getRequestMethod();
+
+            // the dataset never changes, a url identifies its representation
+            if ("GET".equals(method)) {
+                String etag = etagOf(exchange);
+                exchange.getResponseHeaders().set("ETag", etag);
+                if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    exchange.sendResponseHeaders(304, -1);
+                    return;
+                }
+            }
+
+            // path[0] is empty, path[1] is the resource
+            if (path.length < 2)
+                sendJson(exchange, 404, "{}");
+            else if ("todos".equals(path[1]))
+                handleTodos(exchange, method, path);
+            else if ("users".equals(path[1]))
+                handleUsers(exchange, method, path);
+            else
+                sendJson(exchange, 404, "{}");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            sendJson(exchange, 500, "{\"message\":" + GSON.toJson(String.valueOf(e.getMessage())) + "}");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleTodos(HttpExchange exchange, String method, String[] path) throws IOException {
+        if (path.length == 2) {
+            switch (method) {
+                case "GET" -> writeTodos(exchange, parseQuery(exchange.getRequestURI().getRawQuery()));
+                case "POST" -> {
+                    Todo created = readTodo(exchange);
+                    if (created == null) {
+                        sendJson(exchange, 400, "{\"message\":\"Invalid todo\"}");
+                        return;
+                    }
+                    created.setId(todoCount + 1);
+                    sendJson(exchange, 201, GSON.toJson(created));
+                }
+                default -> sendJson(exchange, 405, "{}");
+            }
+            return;
+        }
+
+        long id = parseId(path[2]);
+        if (id < 1 || id > todoCount) {
+            // the real API answers deletes of anything with 200 and fails replacing unknown ids
+            int status = switch (method) {
+                case "DELETE" -> 200;
+                case "PUT" -> 500;
+                default -> 404;
+            };
+            sendJson(exchange, status, "{}");
+            return;
+        }
+
+        switch (method) {
+            case "GET" -> sendJson(exchange, 200, GSON.toJson(todo(id)));
+            case "PUT" -> {
+                Todo replaced = readTodo(exchange);
+                if (replaced == null) {
+                    sendJson(exchange, 400, "{\"message\":\"Invalid todo\"}");
+                    return;
+                }
+                replaced.setId(id);
+                sendJson(exchange, 200, GSON.toJson(replaced));
+            }
+            case "PATCH" -> {
+                Todo patch = readTodo(exchange);
+                Todo patched = todo(id);
+                if (patch != null) {
+                    if (patch.getUserId() != null) patched.setUserId(patch.getUserId());
+                    if (patch.getTitle() != null) patched.setTitle(patch.getTitle());
+                    if (patch.getCompleted() != null) patched.setCompleted(patch.getCompleted());
+                }
+                sendJson(exchange, 200, GSON.toJson(patched));
+            }
+            case "DELETE" -> sendJson(exchange, 200, "{}");
+            default -> sendJson(exchange, 405, "{}");
+        }
+    }
+
+    private void handleUsers(HttpExchange exchange, String method, String[] path) throws IOException {
+        if (!"GET".equals(method)) {
+            sendJson(exchange, 405, "{}");
+            return;
+        }
+
+        if (path.length == 2) {
+            sendStream(exchange, writer -> {
+                for (long id = 1; id <= userCount; id++) {
+                    GSON.toJson(user(id), User.class, writer);
+                }
+            });
+            return;
+        }
+
+        long id = parseId(path[2]);
+        if (id < 1 || id > userCount) {
+            sendJson(exchange, 404, "{}");
+            return;
+        }
+
+        // /users/{id}/todos
+        if (path.length > 3 && "todos".equals(path[3])) {
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            query.put("userId", String.valueOf(id));
+            writeTodos(exchange, query);
+            return;
+        }
+
+        sendJson(exchange, 200, GSON.toJson(user(id)));
+    }
+
+    // filters the real API supports on /todos
+    private void writeTodos(HttpExchange exchange, Map<String, String> query) throws IOException {
+        long first = 1;
+        long last = todoCount;
+
+        String userFilter = query.get("userId");
+        if (userFilter != null) {
+            long userId = parseId(userFilter);
+            first = (userId - 1) * todosPerUser + 1;
+            last = Math.min(todoCount, userId * todosPerUser);
+            if (userId < 1) last = 0;
+        }
+
+        String idFilter = query.get("id");
+        if (idFilter != null) {
+            long id = parseId(idFilter);
+            first = Math.max(first, id);
+            last = Math.min(last, id);
+        }
+
+        String completedFilter = query.get("completed");
+        Boolean completed = completedFilter != null ? Boolean.valueOf(completedFilter) : null;
+
+        long from = first;
+        long to = last;
+        sendStream(exchange, writer -> {
+            for (long id = from; id <= to; id++) {
+                Todo todo = todo(id);
+                if (completed == null || completed.equals(todo.getCompleted()))
+                    GSON.toJson(todo, Todo.class, writer);
+            }
+        });
+    }
+
+    // helpers
+
+    @FunctionalInterface
+    private interface ArrayBody {
+        void write(JsonWriter writer) throws IOException;
+    }
+
+    // large arrays go out chunked, element by element
+    private void sendStream(HttpExchange exchange, ArrayBody body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0);
+
+        OutputStream out = new BufferedOutputStream(exchange.getResponseBody(), 64 * 1024);
+        try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            writer.beginArray();
+            body.write(writer);
+            writer.endArray();
+        }
+    }
+
+    private void sendJson(HttpExchange exchange, int status, String json) throws IOException {
+        byte[] bytes = json.getBytes(StandardCharsets.UTF_8);
+
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private Todo readTodo(HttpExchange exchange) throws IOException {
+        try (Reader reader = new InputStreamReader(exchange.getRequestBody(), StandardCharsets.UTF_8)) {
+            return GSON.fromJson(reader, Todo.class);
+        } catch (JsonSyntaxException e) {
+            return null;
+        }
+    }
+
+    private void delay() throws InterruptedException {
+        long min = minLatencyMillis;
+        long max = maxLatencyMillis;
+        if (max <= 0) return;
+
+        Thread.sleep(min == max ? min : ThreadLocalRandom.current().nextLong(min, max + 1));
+    }
+
+    private String etagOf(HttpExchange exchange) {
+        long hash = mix(exchange.getRequestURI().toString().hashCode() ^ mix(todoCount * 31 + userCount));
+        return "W/\"" + Long.toHexString(hash) + "\"";
+    }
+
+    private static Map<String, String> parseQuery(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null || rawQuery.isEmpty())
+            return params;
+
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq <= 0) continue;
+
+            params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                    URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+        }
+
+        return params;
+    }
+
+    private static long parseId(String value) {
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static String title(long hash) {
+        StringBuilder title = new StringBuilder();
+        int words = 3 + (int) ((hash >>> 2) % 5);
+
+        for (int i = 0; i < words; i++) {
+            if (i > 0) title.append(' ');
+            title.append(WORDS[(int) ((hash >>> (8 + i * 5)) & 0x1F) % WORDS.length]);
+        }
+
+        return title.toString();
+    }
+
+    // splitmix64 finalizer, spreads sequential ids
+    private static long mix(long x) {
+        x = (x ^ (x >>> 30)) * 0xbf58476d1ce4e5b9L;
+        x = (x ^ (x >>> 27)) * 0x94d049bb133111ebL;
+        return x ^ (x >>> 31);
+    }
+
+    // standalone: java ... FakeJsonPlaceholderServer [port] [todos] [users]
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        long todos = args.length > 1 ? Long.parseLong(args[1]) : 200;
+        long users = args.length > 2 ? Long.parseLong(args[2]) : 10;
+
+        FakeJsonPlaceholderServer server = new FakeJsonPlaceholderServer(todos, users);
+        System.out.println("Serving " + todos + " todos of " + users + " users at " + server.start(port));
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.service;
+
+import com.example.client.ResilientSender;
+import com.example.model.ApiException;
+import com.example.model.BulkResult;
+import com.example.model.Todo;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/*
+    Runs one API mutation per todo concurrently, with at most `concurrency` calls in flight.
+    Transient failures (I/O errors, 429 and 5xx) are retried with a short linear backoff, unless
+    the mutations go through a ResilientSender (see setSender()): then its policy alone retries.
+    With a deadline, mutations still running when it passes are cancelled and reported as failed
+ */
+public class BulkMutationEngine {
+    public static final int DEFAULT_CONCURRENCY = 8;
+    public static final int DEFAULT_VIRTUAL_CONCURRENCY = 1024;
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+    private static final long RETRY_DELAY_MS = 100;
+
+    private final ExecutorService executor;
+    private final Semaphore permits;
+    private final int concurrency;
+    private final int maxAttempts;
+    // retries the mutations' HTTP calls, null if the engine retries them itself
+    private volatile ResilientSender sender;
+
+    // a single API call for one todo; throw ApiException to report a failure
+    @FunctionalInterface
+    public interface Mutation<T> {
+        T apply(Todo todo) throws ApiException;
+    }
+
+    public BulkMutationEngine() {
+        this(DEFAULT_CONCURRENCY, DEFAULT_MAX_ATTEMPTS);
+    }
+
+    public BulkMutationEngine(int concurrency, int maxAttempts) {
+        this(ExecutionMode.PLATFORM_THREADS, concurrency, maxAttempts);
+    }
+
+    // with virtual threads the pool doesn't bound anything, `concurrency` alone limits calls in flight
+    public BulkMutationEngine(ExecutionMode mode, int concurrency, int maxAttempts) {
+        this(mode.newExecutor("bulk-mutation", validateConcurrency(concurrency)), concurrency, maxAttempts);
+    }
+
+    public BulkMutationEngine(ExecutorService executor, int concurrency, int maxAttempts) {
+        if (executor == null)
+            throw new IllegalArgumentException("Executor cannot be null");
+        if (maxAttempts <= 0)
+            throw new IllegalArgumentException("Max attempts must be positive: " + maxAttempts);
+
+        this.executor = executor;
+        this.concurrency = validateConcurrency(concurrency);
+        this.permits = new Semaphore(this.concurrency);
+        this.maxAttempts = maxAttempts;
+    }
+
+    public <T> BulkResult<T> execute(List<Todo> todos, Mutation<T> mutation) throws ApiException {
+        return execute(todos, mutation, null);
+    }
+
+    // null timeout waits for every mutation
+    public <T> BulkResult<T> execute(List<Todo> todos, Mutation<T> mutation, Duration timeout) throws ApiException {
+        if (todos == null || todos.isEmpty())
+            return new BulkResult<>(List.of());
+
+        long deadline = timeout != null ? System.nanoTime() + timeout.toNanos() : Long.MAX_VALUE;
+
+        List<Future<BulkResult.ItemResult<T>>> futures = new ArrayList<>(todos.size());
+        for (Todo todo : todos) {
+            futures.add(executor.submit(() -> runLimited(todo, mutation)));
+        }
+
+        List<BulkResult.ItemResult<T>> results = new ArrayList<>(todos.size());
+        try {
+            for (int i = 0; i < futures.size(); i++) {
+                results.add(await(futures.get(i), todos.get(i), deadline));
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(future -> future.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new ApiException("Bulk operation was interrupted", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            throw new ApiException("Bulk operation failed: " + e.getCause().getMessage(), e.getCause());
+        }
+
+        return new BulkResult<>(results);
+    }
+
+    public int getConcurrency() { return concurrency; }
+
+    public int getMaxAttempts() { return sender != null ? 1 : maxAttempts; }
+
+    // mutations run once and report the attempts `sender` made, instead of retrying on top of it
+    public void setSender(ResilientSender sender) { this.sender = sender; }
+
+    public ResilientSender getSender() { return sender; }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    // helpers
+    private <T> BulkResult.ItemResult<T> await(Future<BulkResult.ItemResult<T>> future, Todo todo, long deadline)
+            throws InterruptedException, ExecutionException {
+        try {
+            if (deadline == Long.MAX_VALUE)
+                return future.get();
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException | CancellationException e) {
+            future.cancel(true);
+            return BulkResult.ItemResult.failed(todo.getId(),
+                    new ApiException("Todo " + todo.getId() + " was not processed before the deadline"), 0);
+        }
+    }
+
+    private <T> BulkResult.ItemResult<T> runLimited(Todo todo, Mutation<T> mutation) throws InterruptedException {
+        permits.acquire();
+        try {
+            return runWithRetries(todo, mutation);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private <T> BulkResult.ItemResult<T> runWithRetries(Todo todo, Mutation<T> mutation) throws InterruptedException {
+        ResilientSender retrier = sender;
+        if (retrier != null)
+            return runOnce(todo, mutation, retrier);
+
+        int attempt = 0;
+
+        while (true) {
+            attempt++;
+            try {
+                return BulkResult.ItemResult.succeeded(todo.getId(), mutation.apply(todo), attempt);
+            } catch (ApiException e) {
+                if (attempt >= maxAttempts || !isRetryable(e))
+                    return BulkResult.ItemResult.failed(todo.getId(), e, attempt);
+            } catch (RuntimeException e) {
+                // invalid input, retrying won't help
+                return BulkResult.ItemResult.failed(todo.getId(),
+                        new ApiException("Mutation failed: " + e.getMessage(), e), attempt);
+            }
+
+            Thread.sleep(RETRY_DELAY_MS * attempt);
+        }
+    }
+
+    // the sender already retried (honoring Retry-After), its retries on this thread are the item's
+    private <T> BulkResult.ItemResult<T> runOnce(Todo todo, Mutation<T> mutation, ResilientSender retrier) {
+        long retriesBefore = retrier.getThreadRetryCount();
+        try {
+            T value = mutation.apply(todo);
+            return BulkResult.ItemResult.succeeded(todo.getId(), value, attempts(retrier, retriesBefore));
+        } catch (ApiException e) {
+            return BulkResult.ItemResult.failed(todo.getId(), e, attempts(retrier, retriesBefore));
+        } catch (RuntimeException e) {
+            return BulkResult.ItemResult.failed(todo.getId(),
+                    new ApiException("Mutation failed: " + e.getMessage(), e), attempts(retrier, retriesBefore));
+        }
+    }
+
+    private static int attempts(ResilientSender retrier, long retriesBefore) {
+        return 1 + (int) (retrier.getThreadRetryCount() - retriesBefore);
+    }
+
+    private boolean isRetryable(ApiException e) {
+        // the client wraps HTTP errors, so look for the status code down the cause chain
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ApiException apiException && apiException.getStatusCode() != 0) {
+                int status = apiException.getStatusCode();
+                return status == 429 || status >= 500;
+            }
+            if (cause instanceof IOException)
+                return true;
+        }
+
+        return false;
+    }
+
+    private static int validateConcurrency(int concurrency) {
+        if (concurrency <= 0)
+            throw new IllegalArgumentException("Concurrency must be positive: " + concurrency);
+        return concurrency;
+    }
+}
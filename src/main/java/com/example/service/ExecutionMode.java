@@ -0,0 +1,32 @@
+package com.example.service;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// what kind of threads the service runs concurrent API calls on
+public enum ExecutionMode {
+    // fixed pool of daemon threads, concurrency is bounded by the pool size
+    PLATFORM_THREADS,
+    // one virtual thread per call, blocking HTTP costs no pool thread
+    VIRTUAL_THREADS;
+
+    public ExecutorService newExecutor(String name, int platformThreads) {
+        if (this == VIRTUAL_THREADS)
+            return Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name(name + "-", 1).factory());
+
+        if (platformThreads <= 0)
+            throw new IllegalArgumentException("Thread count must be positive: " + platformThreads);
+        return Executors.newFixedThreadPool(platformThreads, daemonThreadFactory(name));
+    }
+
+    private static ThreadFactory daemonThreadFactory(String name) {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
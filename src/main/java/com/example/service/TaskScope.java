@@ -0,0 +1,103 @@
+package com.example.service;
+
+import com.example.model.ApiException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+
+/*
+    Structured fan-out: subtasks forked in the scope never outlive it.
+    The first failure or the deadline cancels (interrupts) every unfinished subtask, closing the
+    scope does the same. A stand-in for StructuredTaskScope, which is still a preview API
+ */
+public class TaskScope<T> implements AutoCloseable {
+    private final ExecutorService executor;
+    private final long deadlineNanos;
+    private final List<Future<T>> forked = new ArrayList<>();
+    private final AtomicReference<Throwable> firstFailure = new AtomicReference<>();
+
+    public TaskScope(ExecutorService executor, Duration timeout) {
+        if (executor == null)
+            throw new IllegalArgumentException("Executor cannot be null");
+        if (timeout == null || timeout.isNegative() || timeout.isZero())
+            throw new IllegalArgumentException("Timeout must be positive: " + timeout);
+
+        this.executor = executor;
+        this.deadlineNanos = System.nanoTime() + timeout.toNanos();
+    }
+
+    public synchronized Future<T> fork(Callable<T> task) {
+        Future<T> future = executor.submit(() -> {
+            try {
+                return task.call();
+            } catch (Exception | Error e) {
+                // fail fast, siblings are no longer needed
+                if (firstFailure.compareAndSet(null, e))
+                    cancelAll();
+                throw e;
+            }
+        });
+        forked.add(future);
+        if (firstFailure.get() != null)
+            future.cancel(true);
+
+        return future;
+    }
+
+    // results in fork order; throws the first failure, or a timeout once the deadline passes
+    public List<T> join() throws ApiException {
+        List<Future<T>> futures;
+        synchronized (this) {
+            futures = new ArrayList<>(forked);
+        }
+
+        List<T> results = new ArrayList<>(futures.size());
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get(Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS));
+            }
+        } catch (InterruptedException e) {
+            cancelAll();
+            Thread.currentThread().interrupt();
+            throw new ApiException("Concurrent requests were interrupted", e);
+        } catch (TimeoutException e) {
+            cancelAll();
+            throw new ApiException("Concurrent requests exceeded their deadline", e);
+        } catch (ExecutionException | CancellationException e) {
+            cancelAll();
+            throw toApiException(firstFailure.get() != null ? firstFailure.get() : e.getCause());
+        }
+
+        return results;
+    }
+
+    @Override
+    public void close() {
+        cancelAll();
+    }
+
+    // helpers
+    private synchronized void cancelAll() {
+        for (Future<T> future : forked) {
+            future.cancel(true);
+        }
+    }
+
+    private static ApiException toApiException(Throwable failure) {
+        if (failure instanceof ApiException apiException)
+            return apiException;
+        if (failure instanceof Error error)
+            throw error;
+
+        return new ApiException("Concurrent request failed: " + failure.getMessage(), failure);
+    }
+}
@@ -1,39 +1,96 @@
 package com.example.service;
 
 import com.example.client.ApiClient;
+import com.example.client.CacheManager;
 import com.example.client.JsonPlaceholderClient;
+import com.example.client.TodoStore;
 import com.example.model.ApiException;
+import com.example.model.BulkResult;
 import com.example.model.Todo;
 
+import java.time.Duration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 public class TodoService {
     private final ApiClient apiClient;
     private final AuthService authService;
+    private final BulkMutationEngine bulkEngine;
+    private final ExecutionMode executionMode;
+    // runs multi-request loads, one task per request
+    private final ExecutorService fanOutExecutor;
+    // local indexes of the clients cache, null if the client doesn't keep any
+    private final TodoStore todoStore;
+    // queues edits when write-behind is enabled, null otherwise
+    private volatile WriteBehindQueue writeBehind;
 
     public TodoService(AuthService authService) {
-        this.authService = authService != null ? authService : new AuthService();
-        this.apiClient = new JsonPlaceholderClient();
+        this(authService, null);
     }
 
     public TodoService(AuthService authService, ApiClient apiClient) {
+        this(authService, apiClient, (BulkMutationEngine) null);
+    }
+
+    // virtual threads let fan-out loads and the bulk engine's mutations keep far more requests in flight;
+    // deleteAllCompleted/markAllAsCompleted go through the client's pipelined batch writes instead
+    public TodoService(AuthService authService, ApiClient apiClient, ExecutionMode mode) {
+        this(authService, apiClient, mode == ExecutionMode.VIRTUAL_THREADS ?
+                new BulkMutationEngine(mode, BulkMutationEngine.DEFAULT_VIRTUAL_CONCURRENCY,
+                        BulkMutationEngine.DEFAULT_MAX_ATTEMPTS) :
+                null, mode);
+    }
+
+    public TodoService(AuthService authService, ApiClient apiClient, BulkMutationEngine bulkEngine) {
+        this(authService, apiClient, bulkEngine, ExecutionMode.PLATFORM_THREADS);
+    }
+
+    public TodoService(AuthService authService, ApiClient apiClient, BulkMutationEngine bulkEngine,
+                       ExecutionMode mode) {
         this.authService = authService != null ? authService : new AuthService();
         this.apiClient = apiClient != null ? apiClient : new JsonPlaceholderClient();
+        this.bulkEngine = bulkEngine != null ? bulkEngine : new BulkMutationEngine();
+        this.executionMode = mode != null ? mode : ExecutionMode.PLATFORM_THREADS;
+        this.fanOutExecutor = this.executionMode.newExecutor("todo-fan-out", BulkMutationEngine.DEFAULT_CONCURRENCY);
+        this.todoStore = this.apiClient instanceof JsonPlaceholderClient client ?
+                client.getCacheManager().getTodoStore().orElse(null) :
+                null;
+        // the client retries every call already, bulk items must not multiply its attempts
+        if (this.apiClient instanceof JsonPlaceholderClient client && this.bulkEngine.getSender() == null)
+            this.bulkEngine.setSender(client.getResilience());
+    }
+
+    // edits are cached right away and sent as merged PATCH batches in the background,
+    // failures are reported to the listener (null logs them)
+    public synchronized void enableWriteBehind(Duration flushInterval, int maxPending,
+                                               WriteBehindQueue.Listener listener) {
+        if (writeBehind != null)
+            throw new IllegalStateException("Write-behind is already enabled");
+
+        CacheManager cacheManager = apiClient instanceof JsonPlaceholderClient client ?
+                client.getCacheManager() :
+                null;
+        writeBehind = new WriteBehindQueue(apiClient, cacheManager, flushInterval, maxPending, listener);
     }
 
     public List<Todo> getCurrentUserTodos() throws ApiException {
         checkAuth();
 
         Long userId = authService.getCurrentUserId();
-        return apiClient.getUserTodos(userId);
+        List<Todo> todos = apiClient.getUserTodos(userId);
+        return writeBehind != null ? writeBehind.overlay(todos) : todos;
     }
 
     public Optional<Todo> getTodoById(Long id) throws ApiException{
         checkAuth();
 
         Optional<Todo> optionalTodo = apiClient.getTodoById(id);
+        if (writeBehind != null)
+            optionalTodo = optionalTodo.map(writeBehind::overlay);
 
         // check if todo belongs to user
         if (optionalTodo.isPresent()) {
@@ -67,7 +124,11 @@ public class TodoService {
             throw new ApiException("Todo not found or doesn't belong to current user");
 
         Todo todo = optionalTodo.get();
+        if (writeBehind != null)
+            return writeBehind.enqueue(todo, title, completed);
 
+        // cached todos are read-only
+        todo = todo.copy();
         if (title != null)
             todo.setTitle(title);
         if (completed != null)
@@ -84,6 +145,10 @@ public class TodoService {
             throw new ApiException("Todo not found or doesn't belong to current user");
 
         Todo todo = optionalTodo.get();
+        if (writeBehind != null)
+            return writeBehind.enqueue(todo, null, !todo.getCompleted());
+
+        todo = todo.copy();
         todo.setCompleted(!todo.getCompleted());
 
         return apiClient.updateTodo(todo);
@@ -100,24 +165,28 @@ public class TodoService {
     }
 
     public List<Todo> getCompletedTodos() throws ApiException {
-        checkAuth();
-
-        Long userId = authService.getCurrentUserId();
-        return apiClient.getTodosByCompletion(userId, true);
+        return getTodosByCompletion(true);
     }
 
     public List<Todo> getPendingTodos() throws ApiException {
-        checkAuth();
-
-        Long userId = authService.getCurrentUserId();
-        return apiClient.getTodosByCompletion(userId, false);
+        return getTodosByCompletion(false);
     }
 
     public List<Todo> searchTodos(String searchStr) throws ApiException {
         checkAuth();
 
+        // nothing to filter by, every todo matches
         if (searchStr == null || searchStr.trim().isEmpty())
-            return getCompletedTodos();
+            return getCurrentUserTodos();
+
+        // title index answers without fetching, loading the list once warms it
+        Long userId = authService.getCurrentUserId();
+        if (todoStore != null) {
+            if (!todoStore.isLoaded(userId))
+                getCurrentUserTodos();
+            if (todoStore.isLoaded(userId))
+                return todoStore.search(userId, searchStr);
+        }
 
         List<Todo> todos = getCurrentUserTodos();
         String finalSearchStr = searchStr.trim().toLowerCase();
@@ -130,6 +199,14 @@ public class TodoService {
     public TodoStats getTodoStats() throws ApiException {
         checkAuth();
 
+        // counters are kept by the indexes, no need to scan the list
+        Long userId = authService.getCurrentUserId();
+        if (todoStore != null && todoStore.isLoaded(userId)) {
+            long total = todoStore.countByUser(userId);
+            long completed = todoStore.countCompleted(userId);
+            return new TodoStats(total, completed, total - completed);
+        }
+
         List<Todo> todos = getCurrentUserTodos();
 
         long total = todos.size();
@@ -139,45 +216,113 @@ public class TodoService {
         return new TodoStats(total, completed, pending);
     }
 
-    public int deleteAllCompleted() throws ApiException {
+    public BulkResult<Boolean> deleteAllCompleted() throws ApiException {
+        return deleteAllCompleted(null);
+    }
+
+    // deletes still running at the deadline are cancelled and reported as failed;
+    // one batch, so the caches drop the deleted todos in a single pass
+    public BulkResult<Boolean> deleteAllCompleted(Duration timeout) throws ApiException {
         checkAuth();
 
-        List<Todo> completedTodos = getCompletedTodos();
-        int deletedCount = 0;
+        List<Long> ids = getCompletedTodos().stream().map(Todo::getId).toList();
+        return apiClient.deleteTodos(ids, timeout);
+    }
+
+    public BulkResult<Todo> markAllAsCompleted() throws ApiException {
+        return markAllAsCompleted(null);
+    }
 
-        for (Todo t : completedTodos) {
-            if (apiClient.deleteTodo(t.getId()))
-                deletedCount++;
-        }
+    public BulkResult<Todo> markAllAsCompleted(Duration timeout) throws ApiException {
+        checkAuth();
 
-        return deletedCount;
+        // one PATCH batch that only sends the flag, each user's cached list is dropped once
+        Map<Long, Todo> partials = new LinkedHashMap<>();
+        for (Todo todo : getPendingTodos()) {
+            Todo partial = new Todo();
+            partial.setCompleted(true);
+            partials.put(todo.getId(), partial);
+        }
+        return apiClient.patchTodos(partials, timeout);
     }
 
-    public int markAllAsCompleted() throws ApiException {
+    // todos of several users at once, one request per user; any failure or the deadline cancels the rest
+    public Map<Long, List<Todo>> getTodosForUsers(List<Long> userIds, Duration timeout) throws ApiException {
         checkAuth();
 
-        List<Todo> pendingTodos = getPendingTodos();
-        int updatedCount = 0;
+        if (userIds == null || userIds.isEmpty())
+            return Map.of();
+
+        List<Long> distinctIds = userIds.stream().distinct().toList();
+        try (TaskScope<List<Todo>> scope = new TaskScope<>(fanOutExecutor, timeout)) {
+            for (Long userId : distinctIds) {
+                scope.fork(() -> apiClient.getUserTodos(userId));
+            }
+
+            List<List<Todo>> results = scope.join();
+            Map<Long, List<Todo>> todosByUser = new LinkedHashMap<>();
+            for (int i = 0; i < distinctIds.size(); i++) {
+                todosByUser.put(distinctIds.get(i), results.get(i));
+            }
 
-        for (Todo t : pendingTodos) {
-            t.setCompleted(true);
-            if (apiClient.updateTodo(t) != null)
-                updatedCount++;
+            return todosByUser;
         }
+    }
+
+    // loads the todos into the client's cache ahead of use, returns how many exist
+    public int prefetchTodos(List<Long> ids, Duration timeout) throws ApiException {
+        checkAuth();
 
-        return updatedCount;
+        if (ids == null || ids.isEmpty())
+            return 0;
+
+        try (TaskScope<Optional<Todo>> scope = new TaskScope<>(fanOutExecutor, timeout)) {
+            for (Long id : ids.stream().distinct().toList()) {
+                scope.fork(() -> apiClient.getTodoById(id));
+            }
+
+            return (int) scope.join().stream().filter(Optional::isPresent).count();
+        }
     }
 
     public ApiClient getApiClient() { return apiClient; }
 
+    public Optional<WriteBehindQueue> getWriteBehind() { return Optional.ofNullable(writeBehind); }
+
     public AuthService getAuthService() { return authService; }
 
+    public BulkMutationEngine getBulkEngine() { return bulkEngine; }
+
+    public ExecutionMode getExecutionMode() { return executionMode; }
+
+    public void shutdown() {
+        if (writeBehind != null)
+            writeBehind.close();
+        bulkEngine.shutdown();
+        fanOutExecutor.shutdownNow();
+    }
+
     // helper
     private void checkAuth() throws ApiException {
         if (!authService.isLoggedIn())
             throw new ApiException("User is not authenticated. Login first");
     }
 
+    private List<Todo> getTodosByCompletion(boolean completed) throws ApiException {
+        checkAuth();
+
+        // a reloaded list lacks the queued edits, filter the overlaid one instead
+        WriteBehindQueue queue = writeBehind;
+        if (queue != null && queue.getPendingCount() > 0) {
+            return getCurrentUserTodos().stream()
+                    .filter(todo -> Boolean.valueOf(completed).equals(todo.getCompleted()))
+                    .collect(Collectors.toList());
+        }
+
+        Long userId = authService.getCurrentUserId();
+        return apiClient.getTodosByCompletion(userId, completed);
+    }
+
     // inner class for statistics
     public static class TodoStats {
         private final long total;
@@ -0,0 +1,277 @@
+package com.example.service;
+
+import com.example.client.ApiClient;
+import com.example.client.CacheManager;
+import com.example.model.ApiException;
+import com.example.model.BulkResult;
+import com.example.model.Todo;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/*
+    Write-behind edits of todos. An edit is applied to the local cache at once and queued,
+    later edits of the same todo are merged into it, so toggling an item five times sends
+    at most one PATCH (none if it ends up as it started). The queue is sent as one batch every
+    `flushInterval` or as soon as `maxPending` todos are waiting.
+    Reads should go through overlay() until an edit is sent, a reloaded list doesn't have it yet.
+    An edit the API rejects is dropped from the cache and reported to the listener.
+    Final: the constructor starts the flush schedule, a subclass would be flushed before it is initialized
+ */
+public final class WriteBehindQueue implements AutoCloseable {
+    public static final Duration DEFAULT_FLUSH_INTERVAL = Duration.ofMillis(500);
+    public static final int DEFAULT_MAX_PENDING = 64;
+
+    // outcome of the edits, called on the flushing thread
+    public interface Listener {
+        void onFlushFailed(Long id, Todo partialTodo, ApiException error);
+
+        default void onFlushed(BulkResult<Todo> result) {}
+    }
+
+    private final ApiClient apiClient;
+    // null if the client doesn't expose its cache, edits are only visible through overlay() then
+    private final CacheManager cacheManager;
+    private final int maxPending;
+    private final Listener listener;
+    private final ScheduledExecutorService scheduler;
+
+    // one flush at a time, so edits of a todo reach the API in order
+    private final Object flushLock = new Object();
+    // edits not sent yet and those of the running flush, guarded by this
+    private Map<Long, Edit> pending = new LinkedHashMap<>();
+    private Map<Long, Edit> flushing = Map.of();
+    private boolean flushRequested = false;
+
+    private final LongAdder editCount = new LongAdder();
+    private final LongAdder coalescedCount = new LongAdder();
+    private final LongAdder sentCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+
+    // state the API has (or is being sent) and the state after the queued edits
+    private static class Edit {
+        private Todo base;
+        private final Todo current;
+
+        private Edit(Todo base, Todo current) {
+            this.base = base;
+            this.current = current;
+        }
+
+        // fields that differ from the base, null if the edits cancelled out
+        private Todo partial() {
+            Todo partial = new Todo();
+            boolean changed = false;
+            if (!Objects.equals(current.getTitle(), base.getTitle())) {
+                partial.setTitle(current.getTitle());
+                changed = true;
+            }
+            if (!Objects.equals(current.getCompleted(), base.getCompleted())) {
+                partial.setCompleted(current.getCompleted());
+                changed = true;
+            }
+            return changed ? partial : null;
+        }
+    }
+
+    public WriteBehindQueue(ApiClient apiClient, CacheManager cacheManager, Listener listener) {
+        this(apiClient, cacheManager, DEFAULT_FLUSH_INTERVAL, DEFAULT_MAX_PENDING, listener);
+    }
+
+    public WriteBehindQueue(ApiClient apiClient, CacheManager cacheManager, Duration flushInterval,
+                            int maxPending, Listener listener) {
+        if (apiClient == null)
+            throw new IllegalArgumentException("Api client cannot be null");
+        if (flushInterval == null || flushInterval.isNegative() || flushInterval.isZero())
+            throw new IllegalArgumentException("Flush interval must be positive: " + flushInterval);
+        if (maxPending <= 0)
+            throw new IllegalArgumentException("Max pending must be positive: " + maxPending);
+
+        this.apiClient = apiClient;
+        this.cacheManager = cacheManager;
+        this.maxPending = maxPending;
+        this.listener = listener != null ? listener : (id, partialTodo, error) ->
+                System.err.println("Failed to save todo " + id + ": " + error.getMessage());
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("write-behind").daemon().factory());
+
+        long intervalMillis = flushInterval.toMillis();
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    // queues new values (null keeps a field) for the todo as last read, returns it as edited
+    public Todo enqueue(Todo todo, String title, Boolean completed) {
+        if (todo == null || todo.getId() == null)
+            throw new IllegalArgumentException("Todo must have an ID");
+
+        Long id = todo.getId();
+        Todo edited;
+        boolean full;
+        synchronized (this) {
+            Edit edit = pending.get(id);
+            Todo latest = edit != null ? edit.current : flushing.containsKey(id) ? flushing.get(id).current : todo;
+
+            edited = new Todo(id, latest.getUserId(),
+                    title != null ? title : latest.getTitle(),
+                    completed != null ? completed : latest.getCompleted());
+
+            if (edit != null) {
+                coalescedCount.increment();
+                pending.put(id, new Edit(edit.base, edited));
+            } else {
+                pending.put(id, new Edit(latest, edited));
+            }
+            editCount.increment();
+
+            full = pending.size() >= maxPending && !flushRequested;
+            if (full) flushRequested = true;
+        }
+
+        if (cacheManager != null)
+            cacheManager.cacheTodo(edited);
+        if (full) {
+            try {
+                scheduler.execute(this::flushQuietly);
+            } catch (RejectedExecutionException e) {
+                // closing, close() flushes what is left
+            }
+        }
+
+        return edited;
+    }
+
+    // the todo with its queued edits
+    public synchronized Todo overlay(Todo todo) {
+        if (todo == null) return null;
+
+        Edit edit = editOf(todo.getId());
+        return edit != null ? edit.current : todo;
+    }
+
+    // the list itself when none of its todos has queued edits
+    public synchronized List<Todo> overlay(List<Todo> todos) {
+        if (todos == null || (pending.isEmpty() && flushing.isEmpty()))
+            return todos;
+
+        List<Todo> result = null;
+        for (int i = 0; i < todos.size(); i++) {
+            Edit edit = editOf(todos.get(i).getId());
+            if (edit == null) continue;
+
+            if (result == null) result = new ArrayList<>(todos);
+            result.set(i, edit.current);
+        }
+        return result != null ? result : todos;
+    }
+
+    // sends every queued edit now, blocks until the batch is done
+    public void flush() {
+        synchronized (flushLock) {
+            Map<Long, Edit> batch;
+            synchronized (this) {
+                batch = pending;
+                pending = new LinkedHashMap<>();
+                flushing = batch;
+                flushRequested = false;
+            }
+
+            try {
+                send(batch);
+            } finally {
+                synchronized (this) {
+                    flushing = Map.of();
+                }
+            }
+        }
+    }
+
+    public synchronized int getPendingCount() {
+        return pending.size() + flushing.size();
+    }
+
+    // edits queued, merged into an earlier edit, PATCH requests sent and rejected
+    public long getEditCount() { return editCount.sum(); }
+    public long getCoalescedCount() { return coalescedCount.sum(); }
+    public long getSentCount() { return sentCount.sum(); }
+    public long getFailedCount() { return failedCount.sum(); }
+
+    // flushes what is queued and stops the schedule
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        flush();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("WriteBehind{pending=%d, edits=%d, coalesced=%d, sent=%d, failed=%d}",
+                getPendingCount(), getEditCount(), getCoalescedCount(), getSentCount(), getFailedCount());
+    }
+
+    // helpers
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // keep the schedule running
+            System.err.println("Write-behind flush failed: " + e.getMessage());
+        }
+    }
+
+    private void send(Map<Long, Edit> batch) {
+        Map<Long, Todo> partials = new LinkedHashMap<>();
+        for (Map.Entry<Long, Edit> entry : batch.entrySet()) {
+            Todo partial = entry.getValue().partial();
+            if (partial != null)
+                partials.put(entry.getKey(), partial);
+        }
+        if (partials.isEmpty()) return;
+
+        BulkResult<Todo> result;
+        try {
+            result = apiClient.patchTodos(partials);
+        } catch (ApiException e) {
+            List<BulkResult.ItemResult<Todo>> failures = new ArrayList<>(partials.size());
+            for (Long id : partials.keySet()) {
+                failures.add(BulkResult.ItemResult.failed(id, e, 1));
+            }
+            result = new BulkResult<>(failures);
+        }
+
+        sentCount.add(result.getTotalCount());
+        for (BulkResult.ItemResult<Todo> item : result.getFailures()) {
+            failedCount.increment();
+            rejected(item.getId(), batch.get(item.getId()));
+            listener.onFlushFailed(item.getId(), partials.get(item.getId()), item.getError());
+        }
+        listener.onFlushed(result);
+    }
+
+    // the cached todo has an edit the API doesn't, reload it next time
+    private void rejected(Long id, Edit edit) {
+        synchronized (this) {
+            // a later edit of the todo has to carry the rejected fields as well
+            Edit later = pending.get(id);
+            if (later != null)
+                later.base = edit.base;
+        }
+
+        if (cacheManager != null)
+            cacheManager.removeFromCache(id);
+    }
+
+    // guarded by this
+    private Edit editOf(Long id) {
+        Edit edit = pending.get(id);
+        return edit != null ? edit : flushing.get(id);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+    private final AtomicLong now = new AtomicLong();
+    // opens at 50% failures of the last 4 calls, 10 s open, 2 trial calls
+    private final CircuitBreaker breaker =
+            new CircuitBreaker(0.5, 4, 4, Duration.ofSeconds(10), 2, now::get);
+
+    @Test
+    void testOpensAtFailureRate() {
+        call(true);
+        call(false);
+        call(true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState(), "Too few calls to judge");
+
+        call(false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire(), "Open breaker should reject calls");
+        assertEquals(1, breaker.getStats().getRejectedCount());
+    }
+
+    @Test
+    void testHalfOpenClosesAfterSuccessfulTrials() {
+        open();
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire(), "Only the trial calls may pass");
+
+        breaker.onSuccess();
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    void testHalfOpenFailureReopens() {
+        open();
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertTrue(breaker.tryAcquire());
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertEquals(2, breaker.getStats().getOpenedCount());
+    }
+
+    @Test
+    void testReleasedTrialCanBeRetried() {
+        open();
+        now.addAndGet(Duration.ofSeconds(10).toNanos());
+
+        assertTrue(breaker.tryAcquire());
+        assertTrue(breaker.tryAcquire());
+        // one trial was interrupted before it got an answer
+        breaker.release();
+        assertTrue(breaker.tryAcquire(), "A released trial permit should be usable again");
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onSuccess();
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        breaker.release();
+        assertTrue(breaker.tryAcquire());
+    }
+
+    // helpers
+    private void call(boolean succeeded) {
+        assertTrue(breaker.tryAcquire());
+        if (succeeded)
+            breaker.onSuccess();
+        else
+            breaker.onFailure();
+    }
+
+    private void open() {
+        for (int i = 0; i < 4; i++) {
+            call(false);
+        }
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+}
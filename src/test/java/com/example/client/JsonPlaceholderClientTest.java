@@ -1,16 +1,20 @@
 package com.example.client;
 
 import com.example.model.Todo;
+import com.example.server.FakeServerTest;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
 import static org.junit.jupiter.api.Assertions.*;
 
-public class JsonPlaceholderClientTest {
+public class JsonPlaceholderClientTest extends FakeServerTest {
     private JsonPlaceholderClient client;
 
     @BeforeEach
     void setUp() {
-        client = new JsonPlaceholderClient();
+        client = newClient();
     }
 
     @Test
@@ -65,4 +69,34 @@ public class JsonPlaceholderClientTest {
             fail("Should handle non-existent todo gracefully");
         }
     }
+
+    @Test
+    void testGetNonExistentUser() throws Exception {
+        assertFalse(client.getUserById(99999L).isPresent(),
+                "Non-existent user should return an empty Optional");
+        assertFalse(client.getUserByIdAsync(99999L).get().isPresent(),
+                "Async lookup should agree with the blocking one");
+    }
+
+    @Test
+    void testBatchWrites() {
+        try {
+            client.getUserTodos(1L);
+            assertTrue(client.getCacheManager().getCachedUserTodos(1L).isPresent());
+
+            var created = client.createTodos(List.of(new Todo(1L, "first", false), new Todo(1L, "second", false)));
+            assertTrue(created.isAllSucceeded());
+            assertEquals("second", created.getItems().get(1).getValue().getTitle());
+            assertNotNull(created.getItems().get(1).getId());
+            // the user's lists are stale now
+            assertFalse(client.getCacheManager().getCachedUserTodos(1L).isPresent());
+
+            // already deleted todos count as deleted
+            var deleted = client.deleteTodos(List.of(1L, 99999L));
+            assertEquals(2, deleted.getSucceededCount());
+            assertFalse(client.getCacheManager().getCachedTodo(1L).isPresent());
+        } catch (Exception e) {
+            fail("Failed to run batch writes: " + e.getMessage());
+        }
+    }
 }
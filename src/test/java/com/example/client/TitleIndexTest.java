@@ -0,0 +1,68 @@
+package com.example.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TitleIndexTest {
+
+    @Test
+    void testShortQueriesCheckEveryCandidate() {
+        TitleIndex index = index("ab", "xabx", "cd", "a");
+
+        // no trigram to intersect, the titles themselves are checked
+        assertEquals(List.of(0, 1), matches(index, "ab", 4));
+        assertEquals(List.of(0, 1, 3), matches(index, "a", 4));
+        assertEquals(List.of(0, 1, 2, 3), matches(index, "", 4));
+    }
+
+    @Test
+    void testTrigramsMustFormTheSubstring() {
+        // both trigrams of "abcd" occur, but not next to each other
+        TitleIndex index = index("abc bcd", "xabcdx");
+
+        assertEquals(List.of(1), matches(index, "abcd", 2));
+        assertEquals(List.of(), matches(index, "zzz", 2));
+    }
+
+    @Test
+    void testRemovedTitlesLeaveNoGrams() {
+        TitleIndex index = index("Hello");
+        index.remove(0);
+        index.add(0, "world");
+
+        assertEquals(List.of(), matches(index, "hel", 1));
+        assertEquals(List.of(0), matches(index, "orl", 1));
+    }
+
+    @Test
+    void testRanksPreferWholeTitlesAndPrefixes() {
+        TitleIndex index = index("Milk", "milk and bread", "buy milk", "buttermilk", "buttermilk, milk");
+
+        assertEquals(0, index.rank(0, "milk"));
+        assertEquals(1, index.rank(1, "milk"));
+        assertEquals(2, index.rank(2, "milk"));
+        assertEquals(3, index.rank(3, "milk"));
+        // any later word start counts
+        assertEquals(2, index.rank(4, "milk"));
+    }
+
+    private static TitleIndex index(String... titles) {
+        TitleIndex index = new TitleIndex();
+        for (int slot = 0; slot < titles.length; slot++) {
+            index.add(slot, titles[slot]);
+        }
+        return index;
+    }
+
+    // slots among the first `count` whose title contains the query
+    private static List<Integer> matches(TitleIndex index, String query, int count) {
+        BitSet candidates = new BitSet();
+        candidates.set(0, count);
+        index.filter(candidates, TitleIndex.normalize(query));
+        return candidates.stream().boxed().toList();
+    }
+}
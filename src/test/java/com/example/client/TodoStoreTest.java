@@ -0,0 +1,98 @@
+package com.example.client;
+
+import com.example.model.Todo;
+import com.example.model.TodoDelta;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TodoStoreTest {
+
+    @Test
+    void testReusedSlotsStartClean() {
+        TodoStore store = new TodoStore(() -> 60_000);
+        store.put(todo(1, 1, "Buy milk", false));
+        store.put(todo(2, 1, "Walk the dog", true));
+        store.put(todo(3, 1, "Call mom", false));
+
+        // 4 takes the slot 2 left, none of 2's flag, title or owner may stick to it
+        store.remove(2L);
+        store.put(todo(4, 2, "Pay rent", false));
+
+        assertEquals(3, store.size());
+        assertEquals(List.of(1L, 3L), ids(store.getByUser(1L)));
+        assertEquals(List.of(4L), ids(store.getByUser(2L)));
+        assertTrue(store.getByCompletion(2L, true).isEmpty());
+        assertEquals(0, store.countCompleted(1L));
+        assertTrue(store.search(1L, "dog").isEmpty());
+        assertEquals(List.of(4L), ids(store.search(2L, "rent")));
+    }
+
+    @Test
+    void testCountersFollowDeltasEvictionsAndReplacement() {
+        TodoStore store = new TodoStore(() -> 60_000);
+        store.replaceUser(1L, List.of(todo(1, 1, "a", true), todo(2, 1, "b", false), todo(3, 1, "c", false)));
+        assertTrue(store.isLoaded(1L));
+        assertEquals(3, store.countByUser(1L));
+        assertEquals(1, store.countCompleted(1L));
+
+        // 2 is completed, 3 moves to user 2, 1 is deleted and 4 added
+        TodoDelta delta = new TodoDelta(List.of(todo(4, 1, "d", true)),
+                List.of(todo(2, 1, "b", true), todo(3, 2, "c", false)), List.of(1L));
+        store.applyDelta(1L, List.of(), delta);
+        assertEquals(List.of(2L, 4L), ids(store.getByUser(1L)));
+        assertEquals(2, store.countCompleted(1L));
+        assertEquals(1, store.countByUser(2L));
+
+        // an evicted todo leaves its owner incomplete, counters still add up
+        store.evict(4L);
+        assertFalse(store.isLoaded(1L));
+        assertEquals(1, store.countByUser(1L));
+        assertEquals(1, store.countCompleted(1L));
+
+        // not loaded: the delta's list replaces everything known about the user
+        store.applyDelta(1L, List.of(todo(5, 1, "e", false)), TodoDelta.EMPTY);
+        assertTrue(store.isLoaded(1L));
+        assertEquals(List.of(5L), ids(store.getByUser(1L)));
+        assertEquals(0, store.countCompleted(1L));
+        assertEquals(1, store.countByUser(2L));
+    }
+
+    @Test
+    void testSearchRanksMatchesThenOrdersById() {
+        TodoStore store = new TodoStore(() -> 60_000);
+        store.put(todo(1, 1, "Buttermilk pancakes", false));
+        store.put(todo(2, 1, "Buy MILK", false));
+        store.put(todo(3, 1, "milk", false));
+        store.put(todo(4, 1, "Milk the cow", false));
+        store.put(todo(5, 1, "Buy oat milk", false));
+        store.put(todo(6, 1, "Bread", false));
+
+        assertEquals(List.of(3L, 4L, 2L, 5L, 1L), ids(store.search(1L, " Milk ")));
+        assertEquals(6, store.search(1L, "").size());
+        assertTrue(store.search(2L, "milk").isEmpty());
+    }
+
+    @Test
+    void testLoadedUsersExpireWithTheTtl() {
+        long[] ttl = { 60_000 };
+        TodoStore store = new TodoStore(() -> ttl[0]);
+        store.replaceAll(List.of(todo(1, 1, "a", false), todo(2, 2, "b", false)));
+        assertTrue(store.isLoaded(1L));
+        assertTrue(store.isLoaded(2L));
+
+        ttl[0] = -1;
+        assertFalse(store.isLoaded(1L));
+        assertEquals(1, store.countByUser(1L));
+    }
+
+    private static Todo todo(long id, long userId, String title, boolean completed) {
+        return new Todo(id, userId, title, completed);
+    }
+
+    private static List<Long> ids(List<Todo> todos) {
+        return todos.stream().map(Todo::getId).toList();
+    }
+}
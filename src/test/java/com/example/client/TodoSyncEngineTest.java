@@ -0,0 +1,112 @@
+package com.example.client;
+
+import com.example.client.impl.MemoryCacheManager;
+import com.example.model.Todo;
+import com.example.model.TodoDelta;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TodoSyncEngineTest {
+    // what the "server" answers next
+    private List<Todo> serverTodos = List.of();
+
+    private final CacheLoader loader = new CacheLoader() {
+        @Override
+        public List<Todo> loadAllTodos() {
+            return serverTodos;
+        }
+
+        @Override
+        public List<Todo> loadUserTodos(Long userId) {
+            // every load parses new instances
+            List<Todo> todos = new ArrayList<>();
+            for (Todo todo : serverTodos) {
+                todos.add(todo.copy());
+            }
+            return todos;
+        }
+    };
+
+    @Test
+    void testOnlyChangesAreReported() throws Exception {
+        MemoryCacheManager cache = new MemoryCacheManager();
+        TodoSyncEngine engine = new TodoSyncEngine(loader, cache);
+        List<TodoDelta> events = new ArrayList<>();
+        engine.addListener((userId, version, delta) -> events.add(delta));
+
+        serverTodos = List.of(todo(1, "a", false), todo(2, "b", false), todo(3, "c", true));
+        assertEquals(3, engine.sync(1L).getAdded().size());
+        Todo unchanged = cache.getCachedTodo(2L).orElseThrow();
+
+        // same values in new instances
+        assertTrue(engine.sync(1L).isEmpty());
+        assertEquals(1, engine.getVersion(1L));
+        assertEquals(1, events.size());
+
+        serverTodos = List.of(todo(1, "a", true), todo(2, "b", false), todo(4, "d", false));
+        TodoDelta delta = engine.sync(1L);
+        assertEquals(List.of(4L), delta.getAdded().stream().map(Todo::getId).toList());
+        assertEquals(List.of(1L), delta.getUpdated().stream().map(Todo::getId).toList());
+        assertEquals(List.of(3L), delta.getRemovedIds());
+        assertEquals(2, engine.getVersion(1L));
+        assertEquals(2, events.size());
+
+        // the cache and its indexes follow, unchanged todos keep their instances
+        assertSame(unchanged, cache.getCachedTodo(2L).orElseThrow());
+        assertSame(unchanged, cache.getCachedUserTodos(1L).orElseThrow().get(1));
+        assertFalse(cache.getCachedTodo(3L).isPresent());
+        TodoStore store = cache.getTodoStore().orElseThrow();
+        assertEquals(3, store.countByUser(1L));
+        assertEquals(1, store.countCompleted(1L));
+    }
+
+    @Test
+    void testFirstSyncReplacesEntriesCachedBefore() throws Exception {
+        MemoryCacheManager cache = new MemoryCacheManager();
+        cache.cacheUserTodos(1L, List.of(todo(1, "a", false), todo(2, "b", true)));
+        TodoSyncEngine engine = new TodoSyncEngine(loader, cache);
+
+        // 2 was deleted on the server before the engine ever saw the user
+        serverTodos = List.of(todo(1, "a", false), todo(3, "c", false));
+        engine.sync(1L);
+
+        assertFalse(cache.getCachedTodo(2L).isPresent());
+        assertEquals(List.of(1L, 3L), cache.getCachedUserTodos(1L).orElseThrow().stream().map(Todo::getId).toList());
+        TodoStore store = cache.getTodoStore().orElseThrow();
+        assertEquals(2, store.countByUser(1L));
+        assertEquals(0, store.countCompleted(1L));
+    }
+
+    @Test
+    void testSyncsKeepUnchangedTodosCached() throws Exception {
+        MemoryCacheManager cache = new MemoryCacheManager();
+        cache.setTtl(200);
+        TodoSyncEngine engine = new TodoSyncEngine(loader, cache);
+
+        serverTodos = List.of(todo(1, "a", false), todo(2, "b", false));
+        engine.sync(1L);
+        Todo unchanged = cache.getCachedTodo(2L).orElseThrow();
+
+        // only 1 changes, the syncs renew 2 without caching it again
+        for (int i = 0; i < 3; i++) {
+            Thread.sleep(100);
+            serverTodos = List.of(todo(1, "a" + i, false), todo(2, "b", false));
+            assertEquals(1, engine.sync(1L).getUpdated().size());
+        }
+        Thread.sleep(100);
+        assertTrue(engine.sync(1L).isEmpty());
+
+        assertSame(unchanged, cache.getCachedTodo(2L).orElseThrow());
+        assertEquals("a2", cache.getCachedTodo(1L).orElseThrow().getTitle());
+        assertEquals(2, cache.getCachedUserTodos(1L).orElseThrow().size());
+        assertTrue(cache.getTodoStore().orElseThrow().isLoaded(1L));
+    }
+
+    private static Todo todo(long id, String title, boolean completed) {
+        return new Todo(id, 1L, title, completed);
+    }
+}
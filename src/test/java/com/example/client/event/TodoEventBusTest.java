@@ -0,0 +1,135 @@
+package com.example.client.event;
+
+import com.example.client.CacheManager;
+import com.example.client.JsonPlaceholderClient;
+import com.example.model.Todo;
+import com.example.server.FakeServerTest;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TodoEventBusTest extends FakeServerTest {
+
+    @Test
+    void testFullBuffersFollowTheirPolicy() throws Exception {
+        TodoEventBus bus = new TodoEventBus();
+        CountDownLatch release = new CountDownLatch(1);
+        BlockingQueue<TodoEvent> newest = new LinkedBlockingQueue<>();
+        BlockingQueue<TodoEvent> oldest = new LinkedBlockingQueue<>();
+
+        // both listeners stall on the first event, the rest has to fit into 2 slots
+        TodoEventBus.Subscription dropNewest = bus.subscribe(event -> {
+            await(release);
+            newest.add(event);
+        }, 2, TodoEventBus.BackPressure.DROP_NEWEST);
+        TodoEventBus.Subscription dropOldest = bus.subscribe(event -> {
+            await(release);
+            oldest.add(event);
+        }, 2, TodoEventBus.BackPressure.DROP_OLDEST);
+
+        bus.publish(new TodoEvent.TodoDeleted(1L));
+        waitUntil(() -> dropNewest.getQueued() == 0 && dropOldest.getQueued() == 0);
+        for (long id = 2; id <= 5; id++) {
+            bus.publish(new TodoEvent.TodoDeleted(id));
+        }
+        release.countDown();
+
+        assertEquals(List.of(1L, 2L, 3L), ids(newest, 3));
+        assertEquals(List.of(1L, 4L, 5L), ids(oldest, 3));
+        assertEquals(2, dropNewest.getDroppedCount());
+        assertEquals(2, dropOldest.getDroppedCount());
+
+        dropNewest.close();
+        assertEquals(1, bus.getSubscriberCount());
+        bus.close();
+        assertFalse(bus.hasSubscribers());
+    }
+
+    @Test
+    void testTryPublishNeverWaitsForBlockingSubscribers() throws Exception {
+        TodoEventBus bus = new TodoEventBus();
+        CountDownLatch release = new CountDownLatch(1);
+        TodoEventBus.Subscription subscription = bus.subscribe(event -> await(release), 1,
+                TodoEventBus.BackPressure.BLOCK);
+
+        bus.publish(new TodoEvent.TodoDeleted(1L));
+        waitUntil(() -> subscription.getQueued() == 0);
+        bus.publish(new TodoEvent.TodoDeleted(2L));
+
+        // the buffer is full, publish() would wait MAX_BLOCK here
+        long started = System.nanoTime();
+        bus.tryPublish(new TodoEvent.CacheInvalidated(null, null));
+        assertTrue(System.nanoTime() - started < TodoEventBus.MAX_BLOCK.toNanos());
+        assertEquals(1, subscription.getDroppedCount());
+
+        release.countDown();
+        bus.close();
+    }
+
+    @Test
+    void testClientPublishesWritesAndInvalidations() throws Exception {
+        JsonPlaceholderClient client = newClient();
+        BlockingQueue<TodoEvent> events = new LinkedBlockingQueue<>();
+
+        try (TodoEventBus.Subscription subscription = client.getEvents().subscribe(events::add)) {
+            Todo created = client.createTodo(new Todo(1L, "event bus", false));
+            client.deleteTodo(3L);
+
+            // the user's list is dropped before the write is reported
+            assertEquals(new TodoEvent.CacheInvalidated(CacheManager.Region.USER_TODOS, 1L),
+                    next(events, TodoEvent.CacheInvalidated.class));
+            TodoEvent.TodoCreated createdEvent = (TodoEvent.TodoCreated) next(events, TodoEvent.TodoCreated.class);
+            assertEquals("event bus", createdEvent.todo().getTitle());
+            assertSame(created, createdEvent.todo());
+            assertEquals(new TodoEvent.TodoDeleted(3L), next(events, TodoEvent.TodoDeleted.class));
+
+            client.getCacheManager().clearCache();
+            assertEquals(new TodoEvent.CacheInvalidated(null, null), next(events, TodoEvent.CacheInvalidated.class));
+            assertEquals(0, subscription.getDroppedCount());
+        }
+        assertFalse(client.getEvents().hasSubscribers());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+
+    private static List<Long> ids(BlockingQueue<TodoEvent> events, int count) throws InterruptedException {
+        Long[] ids = new Long[count];
+        for (int i = 0; i < count; i++) {
+            TodoEvent event = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event);
+            ids[i] = ((TodoEvent.TodoDeleted) event).id();
+        }
+        return List.of(ids);
+    }
+
+    // the next event of the given type, skipping others
+    private static TodoEvent next(BlockingQueue<TodoEvent> events, Class<? extends TodoEvent> type)
+            throws InterruptedException {
+        while (true) {
+            TodoEvent event = events.poll(5, TimeUnit.SECONDS);
+            assertNotNull(event, "No " + type.getSimpleName() + " event");
+            if (type.isInstance(event)) return event;
+        }
+    }
+}
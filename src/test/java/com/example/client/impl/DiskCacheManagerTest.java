@@ -0,0 +1,92 @@
+package com.example.client.impl;
+
+import com.example.model.Todo;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiskCacheManagerTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testLogIsReplayedAfterRestart() throws Exception {
+        try (DiskCacheManager cache = new DiskCacheManager(directory)) {
+            cache.cacheUserTodos(1L, List.of(todo(1, "a"), todo(2, "b"), todo(3, "c")));
+            cache.cacheTodo(new Todo(2L, 1L, "b", true));
+            cache.removeFromCache(3L);
+        }
+        assertFalse(Files.exists(directory.resolve("todos.snapshot")));
+
+        try (DiskCacheManager cache = new DiskCacheManager(directory)) {
+            // the list keeps the removed id, it is skipped on read
+            List<Todo> todos = cache.getCachedUserTodos(1L).orElseThrow();
+            assertEquals(List.of(1L, 2L), todos.stream().map(Todo::getId).toList());
+            assertTrue(todos.get(1).getCompleted());
+            assertFalse(cache.getCachedTodo(3L).isPresent());
+        }
+    }
+
+    @Test
+    void testLargeLogIsCompactedIntoTheSnapshot() throws Exception {
+        String padding = "x".repeat(100);
+        try (DiskCacheManager cache = new DiskCacheManager(directory)) {
+            // rewriting the same 100 todos keeps the snapshot small, the log alone passes 1 MB
+            for (int i = 0; i < 10_000; i++) {
+                cache.cacheTodo(new Todo((long) i % 100, 1L, padding + i, false));
+            }
+
+            assertTrue(Files.exists(directory.resolve("todos.snapshot")));
+            assertTrue(Files.size(directory.resolve("todos.wal")) < 1024 * 1024);
+            assertEquals(100, cache.getCacheStats().getCachedTodosCount());
+        }
+
+        try (DiskCacheManager cache = new DiskCacheManager(directory)) {
+            assertEquals(100, cache.getCacheStats().getCachedTodosCount());
+            assertEquals(padding + 9_999, cache.getCachedTodo(99L).orElseThrow().getTitle());
+            assertEquals(padding + 9_900, cache.getCachedTodo(0L).orElseThrow().getTitle());
+        }
+    }
+
+    @Test
+    void testTruncatedTailRecordIsDropped() throws Exception {
+        Path wal = directory.resolve("todos.wal");
+        long intact;
+        try (DiskCacheManager cache = new DiskCacheManager(directory)) {
+            cache.cacheTodo(todo(1, "a"));
+            cache.sync();
+            intact = Files.size(wal);
+            cache.cacheTodo(todo(2, "b"));
+        }
+
+        // a crash in the middle of the second record
+        try (FileChannel channel = FileChannel.open(wal, StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(wal) - 3);
+        }
+
+        try (DiskCacheManager cache = new DiskCacheManager(directory)) {
+            assertTrue(cache.getCachedTodo(1L).isPresent());
+            assertFalse(cache.getCachedTodo(2L).isPresent());
+            assertEquals(intact, Files.size(wal));
+
+            // new records go right after the last intact one
+            cache.cacheTodo(todo(3, "c"));
+        }
+
+        try (DiskCacheManager cache = new DiskCacheManager(directory)) {
+            assertTrue(cache.getCachedTodo(1L).isPresent());
+            assertTrue(cache.getCachedTodo(3L).isPresent());
+        }
+    }
+
+    private static Todo todo(long id, String title) {
+        return new Todo(id, 1L, title, false);
+    }
+}
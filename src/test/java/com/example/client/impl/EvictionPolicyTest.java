@@ -0,0 +1,95 @@
+package com.example.client.impl;
+
+import com.example.model.Todo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EvictionPolicyTest {
+
+    @Test
+    void testLruEvictsLeastRecentlyUsed() {
+        EvictionPolicy<Long> policy = EvictionPolicy.lru();
+        policy.recordInsert(1L);
+        policy.recordInsert(2L);
+        policy.recordInsert(3L);
+        policy.recordAccess(1L);
+
+        assertEquals(2L, policy.selectVictim());
+    }
+
+    @Test
+    void testLfuEvictsLeastFrequentlyUsed() {
+        EvictionPolicy<Long> policy = EvictionPolicy.lfu();
+        policy.recordInsert(1L);
+        policy.recordInsert(2L);
+        policy.recordAccess(1L);
+        policy.recordAccess(1L);
+        policy.recordAccess(2L);
+        policy.recordInsert(3L);
+
+        assertEquals(3L, policy.selectVictim());
+
+        policy.recordRemoval(3L);
+        assertEquals(2L, policy.selectVictim());
+    }
+
+    @Test
+    void testBufferedHitsReachThePolicy() {
+        MemoryCacheManager cache = new MemoryCacheManager(3, Long.MAX_VALUE, EvictionPolicy::lru);
+        for (long id = 1; id <= 3; id++) {
+            cache.cacheTodo(new Todo(id, 1L, "Todo " + id, false));
+        }
+
+        // the hit is only buffered, the next write drains it before picking a victim
+        assertTrue(cache.getCachedTodo(1L).isPresent());
+        cache.cacheTodo(new Todo(4L, 1L, "Todo 4", false));
+
+        assertTrue(cache.getCachedTodo(1L).isPresent());
+        assertFalse(cache.getCachedTodo(2L).isPresent());
+    }
+
+    @Test
+    void testFullReadBufferDropsAccesses() {
+        ReadBuffer<Long> buffer = new ReadBuffer<>();
+        int offered = 0;
+        while (buffer.offer((long) offered)) {
+            offered++;
+        }
+
+        List<Long> drained = new ArrayList<>();
+        buffer.drain(drained::add);
+        assertEquals(offered, drained.size());
+        assertEquals(0L, drained.get(0));
+        assertTrue(buffer.offer(99L));
+    }
+
+    @Test
+    void testBoundedCacheKeepsEntryLimit() {
+        MemoryCacheManager cache = new MemoryCacheManager(10, Long.MAX_VALUE, EvictionPolicy::lru);
+
+        for (long id = 1; id <= 25; id++) {
+            cache.cacheTodo(new Todo(id, 1L, "Todo " + id, false));
+        }
+
+        assertEquals(10, cache.getCacheStats().getCachedTodosCount());
+        assertEquals(15, cache.getCacheStats().getEvictionCount());
+        assertTrue(cache.getCachedTodo(25L).isPresent(), "Newest todo should stay cached");
+        assertFalse(cache.getCachedTodo(1L).isPresent(), "Oldest todo should be evicted");
+    }
+
+    @Test
+    void testBoundedCacheKeepsWeightLimit() {
+        MemoryCacheManager cache = new MemoryCacheManager(1000, 2_000, () -> EvictionPolicy.windowTinyLfu(1000));
+
+        for (long id = 1; id <= 100; id++) {
+            cache.cacheTodo(new Todo(id, 1L, "Todo with a reasonably long title " + id, false));
+        }
+
+        assertTrue(cache.getCacheStats().getCachedTodosCount() < 100);
+        assertTrue(cache.getCacheStats().getEvictionCount() > 0);
+    }
+}
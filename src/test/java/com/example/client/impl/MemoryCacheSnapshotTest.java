@@ -0,0 +1,92 @@
+package com.example.client.impl;
+
+import com.example.model.Todo;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MemoryCacheSnapshotTest {
+
+    @Test
+    void testHitsReturnTheCachedSnapshot() {
+        MemoryCacheManager cache = new MemoryCacheManager();
+        cache.cacheUserTodos(1L, todos(10));
+
+        List<Todo> first = cache.getCachedUserTodos(1L).orElseThrow();
+        assertSame(first, cache.getCachedUserTodos(1L).orElseThrow());
+        assertThrows(UnsupportedOperationException.class, () -> first.remove(0));
+
+        // removal publishes a new list, the one handed out stays as it was
+        cache.removeFromCache(3L);
+        assertEquals(10, first.size());
+        assertEquals(9, cache.getCachedUserTodos(1L).orElseThrow().size());
+    }
+
+    @Test
+    void testCallersKeepTheirTodosEditable() {
+        MemoryCacheManager cache = new MemoryCacheManager();
+        List<Todo> todos = todos(3);
+        Todo single = new Todo(10L, 1L, "Todo 10", false);
+        cache.cacheUserTodos(1L, todos);
+        cache.cacheTodo(single);
+
+        // the cache keeps frozen copies, the caller's todos are neither frozen nor shared
+        todos.get(0).setCompleted(true);
+        single.setTitle("edited");
+        Todo cached = cache.getCachedTodo(1L).orElseThrow();
+        assertTrue(cached.isFrozen());
+        assertFalse(cached.getCompleted());
+        assertEquals("Todo 10", cache.getCachedTodo(10L).orElseThrow().getTitle());
+        assertSame(cached, cache.getCachedUserTodos(1L).orElseThrow().get(0));
+        assertThrows(IllegalStateException.class, () -> cached.setTitle("x"));
+    }
+
+    @Test
+    void testReadersRaceWithRemovals() throws InterruptedException {
+        MemoryCacheManager cache = new MemoryCacheManager();
+        List<Todo> todos = todos(200);
+        cache.cacheAllTodos(todos);
+        cache.cacheUserTodos(1L, todos);
+
+        AtomicBoolean stop = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            readers.add(Thread.ofPlatform().start(() -> {
+                try {
+                    while (!stop.get()) {
+                        cache.getCachedAllTodos().ifPresent(list -> list.forEach(Todo::getId));
+                        cache.getCachedUserTodos(1L).ifPresent(list -> list.forEach(Todo::getId));
+                    }
+                } catch (Throwable e) {
+                    failure.set(e);
+                }
+            }));
+        }
+
+        for (long id = 1; id <= 200; id++) {
+            cache.removeFromCache(id);
+        }
+        stop.set(true);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertNull(failure.get());
+        assertTrue(cache.getCachedUserTodos(1L).orElseThrow().isEmpty());
+        assertTrue(cache.getCachedAllTodos().orElseThrow().isEmpty());
+    }
+
+    private static List<Todo> todos(int count) {
+        List<Todo> todos = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            todos.add(new Todo(id, 1L, "Todo " + id, false));
+        }
+        return todos;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.client.impl;
+
+import com.example.model.Todo;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TodoTableTest {
+
+    @Test
+    void testViewsKeepTheirRowAfterUpdates() {
+        TodoTable table = new TodoTable();
+        table.put(new Todo(1L, 1L, "Buy milk", false), 0);
+        Todo view = table.get(1L);
+
+        // enough updates to rebuild the columns a few times
+        for (int i = 0; i < 500; i++) {
+            table.put(new Todo(1L, 1L, "Buy milk " + i, i % 2 == 0), 0);
+        }
+
+        assertEquals("Buy milk", view.getTitle());
+        assertFalse(view.getCompleted());
+        assertEquals("Buy milk 499", table.get(1L).getTitle());
+        assertEquals(1, table.size());
+    }
+
+    @Test
+    void testSettersDoNotChangeTheTable() {
+        TodoTable table = new TodoTable();
+        table.put(new Todo(7L, null, "Título", null), 0);
+
+        Todo view = table.get(7L);
+        assertNull(view.getUserId());
+        assertNull(view.getCompleted());
+
+        view.setCompleted(true);
+        assertTrue(view.getCompleted());
+        assertEquals("Título", view.getTitle());
+        assertNull(table.get(7L).getCompleted());
+        assertEquals(new Todo(7L, null, "Título", null), view);
+    }
+
+    @Test
+    void testCompactCacheDropsListsWithMissingTodos() {
+        MemoryCacheManager cache = MemoryCacheManager.compact();
+        List<Todo> todos = List.of(new Todo(1L, 1L, "a", false), new Todo(2L, 1L, "b", true));
+        cache.cacheUserTodos(1L, todos);
+
+        assertEquals(todos, cache.getCachedUserTodos(1L).orElseThrow());
+        assertFalse(cache.getTodoStore().isPresent());
+
+        cache.removeFromCache(1L);
+        assertEquals(List.of(todos.get(1)), cache.getCachedUserTodos(1L).orElseThrow());
+
+        cache.setTtl(-1);
+        cache.cleanUp();
+        assertEquals(0, cache.getCacheStats().getCachedTodosCount());
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.client.json;
+
+import com.example.client.TodoStreamReader;
+import com.example.model.Todo;
+import com.example.model.User;
+import com.google.gson.Gson;
+import com.google.gson.JsonSyntaxException;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JsonCodecTest {
+
+    @Test
+    void testBytesParseLikeGson() {
+        String json = "[ {\"userId\": 1, \"id\": 2, \"title\": \"caf\\u00e9 \\\"quoted\\\" \\ud83d\\ude00 ü\", " +
+                "\"completed\": true, \"extra\": {\"nested\": [1, \"]\"]}},\n" +
+                "{\"id\": \"3\", \"userId\": null, \"title\": null, \"completed\": false} ]";
+
+        List<Todo> expected = new Gson().fromJson(json, JsonCodec.TODO_LIST);
+        List<Todo> parsed = JsonCodec.readTodos(json.getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(expected.size(), parsed.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).toString(), parsed.get(i).toString());
+        }
+        assertEquals("café \"quoted\" 😀 ü", parsed.get(0).getTitle());
+    }
+
+    @Test
+    void testUsersSkipUnknownFields() {
+        String json = "[{\"id\":1,\"name\":\"Leanne Graham\",\"username\":\"Bret\",\"email\":\"Sincere@april.biz\"," +
+                "\"address\":{\"street\":\"Kulas Light\",\"geo\":{\"lat\":\"-37.3159\",\"lng\":\"81.1496\"}}," +
+                "\"phone\":\"1-770-736-8031 x56442\",\"company\":{\"name\":\"Romaguera-Crona\"}}]";
+
+        User user = JsonCodec.readUsers(json.getBytes(StandardCharsets.UTF_8)).get(0);
+
+        assertEquals(1L, user.getId());
+        assertEquals("Bret", user.getUsername());
+        assertEquals("Sincere@april.biz", user.getEmail());
+        assertEquals(json.substring(1, json.indexOf(",\"address\"")) + "}", JsonCodec.toJson(user));
+    }
+
+    @Test
+    void testStreamAcrossBufferBoundaries() throws Exception {
+        List<Todo> todos = new ArrayList<>();
+        for (long id = 1; id <= 2_000; id++) {
+            todos.add(new Todo(id, id % 10, "todo \\ \"" + id + "\" ünïcode", id % 2 == 0));
+        }
+        byte[] json = JsonCodec.toJson(todos).getBytes(StandardCharsets.UTF_8);
+
+        List<Todo> read = new ArrayList<>();
+        try (TodoStreamReader reader = new TodoStreamReader(new ByteArrayInputStream(json))) {
+            reader.forEachRemaining(read::add);
+        }
+
+        assertEquals(todos.toString(), read.toString());
+    }
+
+    @Test
+    void testCompactOutputAndMalformedInput() {
+        assertEquals("{\"id\":1,\"userId\":2,\"title\":\"t\",\"completed\":false}",
+                JsonCodec.toJson(new Todo(1L, 2L, "t", false)));
+        assertEquals("{\"userId\":2,\"title\":\"t\"}", JsonCodec.toJson(new Todo(2L, "t", null)));
+
+        assertThrows(JsonSyntaxException.class, () -> JsonCodec.readTodos("[{\"id\":1,}]".getBytes()));
+        assertThrows(JsonSyntaxException.class, () -> JsonCodec.readTodos("[{\"id\":1}".getBytes()));
+        assertThrows(JsonSyntaxException.class, () -> JsonCodec.readTodos("[{\"id\":1} {\"id\":2}]".getBytes()));
+    }
+}
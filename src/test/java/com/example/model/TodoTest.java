@@ -1,4 +1,29 @@
 package com.example.model;
 
+import com.example.client.impl.MemoryCacheManager;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 public class TodoTest {
+
+    @Test
+    void testCachedTodosAreFrozen() {
+        MemoryCacheManager cache = new MemoryCacheManager();
+        Todo todo = new Todo(1L, 1L, "Buy milk", false);
+        cache.cacheUserTodos(1L, List.of(todo));
+
+        Todo cached = cache.getCachedTodo(1L).orElseThrow();
+        assertTrue(cached.isFrozen());
+        assertThrows(IllegalStateException.class, () -> cached.setCompleted(true));
+
+        // edits go to a copy, the cached todo stays as it was
+        Todo edited = cached.copy();
+        edited.setCompleted(true);
+        assertEquals(cached, edited);
+        assertTrue(edited.getCompleted());
+        assertFalse(cache.getCachedUserTodos(1L).orElseThrow().getFirst().getCompleted());
+    }
 }
@@ -0,0 +1,31 @@
+package com.example.server;
+
+import com.example.client.JsonPlaceholderClient;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+
+import java.io.IOException;
+
+// base of tests that talk to a local stand-in, so they don't depend on the real API being reachable
+public abstract class FakeServerTest {
+    protected static FakeJsonPlaceholderServer server;
+    protected static String baseUrl;
+
+    @BeforeAll
+    static void startServer() throws IOException {
+        server = new FakeJsonPlaceholderServer();
+        baseUrl = server.start();
+    }
+
+    @AfterAll
+    static void stopServer() {
+        server.stop();
+    }
+
+    // a client with its own cache, pointed at the server
+    protected static JsonPlaceholderClient newClient() {
+        JsonPlaceholderClient client = new JsonPlaceholderClient();
+        client.setBaseUrl(baseUrl);
+        return client;
+    }
+}
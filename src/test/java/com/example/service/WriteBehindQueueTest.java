@@ -0,0 +1,56 @@
+package com.example.service;
+
+import com.example.client.JsonPlaceholderClient;
+import com.example.model.Todo;
+import com.example.server.FakeServerTest;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WriteBehindQueueTest extends FakeServerTest {
+
+    @Test
+    void testEditsOfOneTodoAreMerged() throws Exception {
+        JsonPlaceholderClient client = newClient();
+        Todo todo = client.getTodoById(1L).orElseThrow();
+
+        // flushed by hand only
+        try (WriteBehindQueue queue = new WriteBehindQueue(client, client.getCacheManager(),
+                Duration.ofHours(1), 100, null)) {
+            queue.enqueue(todo, null, !todo.getCompleted());
+            queue.enqueue(todo, "renamed", null);
+            Todo edited = queue.enqueue(todo, null, todo.getCompleted());
+
+            assertEquals("renamed", edited.getTitle());
+            assertEquals("renamed", client.getCacheManager().getCachedTodo(1L).orElseThrow().getTitle());
+            assertSame(edited, queue.overlay(List.of(todo)).getFirst());
+
+            long requests = server.getRequestCount();
+            queue.flush();
+            assertEquals(requests + 1, server.getRequestCount());
+            assertEquals(1, queue.getSentCount());
+            assertEquals(2, queue.getCoalescedCount());
+            assertEquals(0, queue.getPendingCount());
+        }
+    }
+
+    @Test
+    void testCancelledOutEditsSendNothing() throws Exception {
+        JsonPlaceholderClient client = newClient();
+        Todo todo = client.getTodoById(2L).orElseThrow();
+
+        try (WriteBehindQueue queue = new WriteBehindQueue(client, client.getCacheManager(),
+                Duration.ofHours(1), 100, null)) {
+            queue.enqueue(todo, null, !todo.getCompleted());
+            queue.enqueue(todo, null, todo.getCompleted());
+
+            long requests = server.getRequestCount();
+            queue.flush();
+            assertEquals(requests, server.getRequestCount());
+            assertEquals(0, queue.getSentCount());
+        }
+    }
+}